@@ -0,0 +1,101 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.io.IOException;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
+import com.openclassrooms.starterjwt.security.jwt.JwtTokenCache;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+/**
+ * Authentication of a request carrying a bearer token, with the principal taken from
+ * the token cache or parsed from the token claims.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class AuthTokenFilterBenchmark {
+    private static final FilterChain NOOP_CHAIN = (request, response) -> { };
+
+    private AuthTokenFilter cachedFilter;
+
+    private AuthTokenFilter parsingFilter;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        JwtUtils jwtUtils = new JwtUtils("openclassrooms", 86400000);
+        this.token = jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(UserDetailsImpl.builder()
+                .id(1L)
+                .username("yoga@studio.com")
+                .firstName("Admin")
+                .lastName("Admin")
+                .admin(true)
+                .build(), null));
+
+        this.cachedFilter = filter(jwtUtils, new JwtTokenCache(10000));
+        this.parsingFilter = filter(jwtUtils, new JwtTokenCache(1) {
+            @Override
+            public UserDetailsImpl get(String token) {
+                return null;
+            }
+
+            @Override
+            public void put(String token, UserDetailsImpl principal, Date expiration) {
+            }
+        });
+    }
+
+    private static AuthTokenFilter filter(JwtUtils jwtUtils, JwtTokenCache tokenCache) {
+        AuthTokenFilter filter = new AuthTokenFilter();
+        ReflectionTestUtils.setField(filter, "jwtUtils", jwtUtils);
+        ReflectionTestUtils.setField(filter, "tokenCache", tokenCache);
+        ReflectionTestUtils.setField(filter, "meterRegistry", new SimpleMeterRegistry());
+        return filter;
+    }
+
+    @Benchmark
+    public Authentication cachedPrincipal() throws ServletException, IOException {
+        return authenticate(this.cachedFilter);
+    }
+
+    @Benchmark
+    public Authentication parsedPrincipal() throws ServletException, IOException {
+        return authenticate(this.parsingFilter);
+    }
+
+    private Authentication authenticate(AuthTokenFilter filter) throws ServletException, IOException {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/session");
+        request.addHeader("Authorization", "Bearer " + this.token);
+
+        filter.doFilter(request, new MockHttpServletResponse(), NOOP_CHAIN);
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        SecurityContextHolder.clearContext();
+        return authentication;
+    }
+}
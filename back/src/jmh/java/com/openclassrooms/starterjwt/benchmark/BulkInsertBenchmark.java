@@ -0,0 +1,92 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Cache;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+
+/**
+ * Bulk creation of sessions with one participant each through SessionRepository.saveAll,
+ * in sessions per second. A batch size of 1 sends one statement per row, like the former
+ * IDENTITY ids did, 50 is the configured one. The H2 database is in memory, so the gap
+ * only grows with the network round trips of a MySQL server.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@OperationsPerInvocation(BulkInsertBenchmark.SESSIONS)
+public class BulkInsertBenchmark {
+    static final int SESSIONS = 500;
+
+    @Param({"1", "50"})
+    private int batchSize;
+
+    private ConfigurableApplicationContext context;
+
+    private SessionRepository sessionRepository;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.context = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--spring.jpa.properties.hibernate.jdbc.batch_size=" + this.batchSize);
+        this.sessionRepository = this.context.getBean(SessionRepository.class);
+        this.jdbcTemplate = this.context.getBean(JdbcTemplate.class);
+    }
+
+    @TearDown(Level.Iteration)
+    public void deleteSessions() {
+        this.jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id IN (SELECT id FROM SESSIONS WHERE name = 'Bulk')");
+        this.jdbcTemplate.update("DELETE FROM SESSIONS WHERE name = 'Bulk'");
+        this.context.getBean(EntityManagerFactory.class).getCache().unwrap(Cache.class).evictAllRegions();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @Benchmark
+    public List<Session> saveAll() {
+        List<Session> sessions = new ArrayList<>(SESSIONS);
+        for (int i = 0; i < SESSIONS; i++) {
+            sessions.add(Session.builder()
+                    .name("Bulk")
+                    .description("Bulk creation " + i)
+                    .date(new Date())
+                    .teacher(Teacher.builder().id(1L).build())
+                    .users(new ArrayList<>(Collections.singletonList(new User().setId(1L))))
+                    .build());
+        }
+        return this.sessionRepository.saveAll(sessions);
+    }
+}
@@ -0,0 +1,81 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtParseResult;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+/**
+ * Token throughput of JwtUtils. The legacy* benchmarks replay what JwtUtils did before the parser
+ * and the signing key were built once: a new parser per call, validation and subject extraction parsing twice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class JwtUtilsBenchmark {
+    private static final String SECRET = "openclassrooms";
+
+    private JwtUtils jwtUtils;
+
+    private Authentication authentication;
+
+    private String token;
+
+    @Setup
+    public void setup() {
+        this.jwtUtils = new JwtUtils(SECRET, 86400000);
+        this.authentication = new UsernamePasswordAuthenticationToken(UserDetailsImpl.builder()
+                .id(1L)
+                .username("yoga@studio.com")
+                .firstName("Admin")
+                .lastName("Admin")
+                .admin(true)
+                .build(), null);
+        this.token = this.jwtUtils.generateJwtToken(this.authentication);
+    }
+
+    @Benchmark
+    public String legacyGenerate() {
+        UserDetailsImpl userPrincipal = (UserDetailsImpl) this.authentication.getPrincipal();
+
+        return Jwts.builder()
+                .setSubject(userPrincipal.getUsername())
+                .setIssuedAt(new Date())
+                .setExpiration(new Date(new Date().getTime() + 86400000))
+                .signWith(SignatureAlgorithm.HS512, SECRET)
+                .compact();
+    }
+
+    @Benchmark
+    public String generate() {
+        return this.jwtUtils.generateJwtToken(this.authentication);
+    }
+
+    @Benchmark
+    public String legacyValidateThenGetUserName() {
+        Jwts.parser().setSigningKey(SECRET).parseClaimsJws(this.token);
+        return Jwts.parser().setSigningKey(SECRET).parseClaimsJws(this.token).getBody().getSubject();
+    }
+
+    @Benchmark
+    public JwtParseResult parse() {
+        return this.jwtUtils.parse(this.token);
+    }
+}
@@ -0,0 +1,89 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.mapper.SessionMapperImpl;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.UserService;
+
+/**
+ * Mapping cost of a session depending on its number of participants. The services are
+ * replaced by in-memory stubs so that only the mapping itself is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class SessionMapperBenchmark {
+    @Param({"10", "1000", "10000"})
+    private int participants;
+
+    private SessionMapper sessionMapper;
+
+    private Session session;
+
+    private SessionDto sessionDto;
+
+    @Setup
+    public void setup() {
+        Teacher teacher = Teacher.builder().id(1L).firstName("Margot").lastName("DELAHAYE").build();
+        List<User> users = new ArrayList<>(this.participants);
+        List<Long> userIds = new ArrayList<>(this.participants);
+        for (long id = 1; id <= this.participants; id++) {
+            users.add(User.builder().id(id).email("user" + id + "@studio.com").firstName("Yoga").lastName("User").password("password").build());
+            userIds.add(id);
+        }
+
+        this.sessionMapper = new SessionMapperImpl();
+        ReflectionTestUtils.setField(this.sessionMapper, "teacherService", new TeacherService(null) {
+            @Override
+            public Teacher getReference(Long id) {
+                return teacher;
+            }
+        });
+        ReflectionTestUtils.setField(this.sessionMapper, "userService", new UserService(null) {
+            @Override
+            public List<User> findAllById(Collection<Long> ids) {
+                return users;
+            }
+        });
+
+        this.session = Session.builder()
+                .id(1L)
+                .name("Session")
+                .date(new Date())
+                .description("Benchmark session")
+                .teacher(teacher)
+                .users(users)
+                .build();
+        this.sessionDto = this.sessionMapper.toDto(this.session);
+    }
+
+    @Benchmark
+    public SessionDto toDto() {
+        return this.sessionMapper.toDto(this.session);
+    }
+
+    @Benchmark
+    public Session toEntity() {
+        return this.sessionMapper.toEntity(this.sessionDto);
+    }
+}
@@ -0,0 +1,93 @@
+package com.openclassrooms.starterjwt.benchmark;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.TestIds;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+/**
+ * Enrollment followed by withdrawal against the H2 test database, with every thread on
+ * the same session or spread over several ones to show the cost of the seat locks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Threads(4)
+public class SessionServiceBenchmark {
+    @Param({"1", "4"})
+    private int sessionCount;
+
+    private ConfigurableApplicationContext context;
+
+    private SessionService sessionService;
+
+    private final List<Long> sessionIds = new ArrayList<>();
+
+    private final AtomicInteger nextUser = new AtomicInteger();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.context = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN");
+        this.sessionService = this.context.getBean(SessionService.class);
+
+        JdbcTemplate jdbcTemplate = this.context.getBean(JdbcTemplate.class);
+        for (int i = 0; i < this.sessionCount; i++) {
+            long id = TestIds.allocate(jdbcTemplate, "SESSIONS", 1);
+            jdbcTemplate.update("INSERT INTO SESSIONS (id, name, description, date, teacher_id) "
+                    + "VALUES (?, 'Benchmark', 'Benchmark session', CURRENT_TIMESTAMP, 1)", id);
+            this.sessionIds.add(id);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        this.context.close();
+    }
+
+    @State(Scope.Thread)
+    public static class Participant {
+        private Long sessionId;
+
+        private Long userId;
+
+        @Setup(Level.Trial)
+        public void setup(SessionServiceBenchmark benchmark) {
+            int index = benchmark.nextUser.getAndIncrement();
+            JdbcTemplate jdbcTemplate = benchmark.context.getBean(JdbcTemplate.class);
+            this.userId = TestIds.allocate(jdbcTemplate, "USERS", 1);
+            jdbcTemplate.update("INSERT INTO USERS (id, first_name, last_name, admin, email, password) "
+                    + "VALUES (?, 'Benchmark', 'User', false, ?, 'password')", this.userId, "benchmark" + index + "@studio.com");
+            this.sessionId = benchmark.sessionIds.get(index % benchmark.sessionIds.size());
+        }
+    }
+
+    @Benchmark
+    public ParticipationStatus participateThenLeave(Participant participant) {
+        ParticipationStatus status = this.sessionService.participate(participant.sessionId, participant.userId);
+        this.sessionService.noLongerParticipate(participant.sessionId, participant.userId);
+        return status;
+    }
+}
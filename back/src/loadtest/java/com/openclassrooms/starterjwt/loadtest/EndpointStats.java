@@ -0,0 +1,58 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Latencies and failures recorded for one endpoint during the measured part of a run.
+ */
+public class EndpointStats {
+    private final String endpoint;
+
+    private final ConcurrentLinkedQueue<Long> latencies = new ConcurrentLinkedQueue<>();
+
+    private final LongAdder failures = new LongAdder();
+
+    public EndpointStats(String endpoint) {
+        this.endpoint = endpoint;
+    }
+
+    public void record(long latencyNanos, boolean failed) {
+        this.latencies.add(latencyNanos);
+        if (failed) {
+            this.failures.increment();
+        }
+    }
+
+    public String getEndpoint() {
+        return this.endpoint;
+    }
+
+    public Map<String, Object> summary(double seconds) {
+        long[] sorted = this.latencies.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(sorted);
+
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("endpoint", this.endpoint);
+        summary.put("requests", sorted.length);
+        summary.put("failures", this.failures.sum());
+        summary.put("rps", sorted.length / seconds);
+        summary.put("p50Ms", percentile(sorted, 50));
+        summary.put("p95Ms", percentile(sorted, 95));
+        summary.put("p99Ms", percentile(sorted, 99));
+        summary.put("maxMs", sorted.length == 0 ? 0 : sorted[sorted.length - 1] / 1_000_000.0);
+        return summary;
+    }
+
+    // Nearest-rank percentile
+    private static double percentile(long[] sorted, int percentile) {
+        if (sorted.length == 0) {
+            return 0;
+        }
+        int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+        return sorted[Math.max(rank, 1) - 1] / 1_000_000.0;
+    }
+}
@@ -0,0 +1,206 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import java.io.File;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.context.WebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.openclassrooms.starterjwt.SpringBootSecurityJwtApplication;
+import com.openclassrooms.starterjwt.TestIds;
+
+/**
+ * Boots the application on the in-memory H2 database, seeds a realistic data set and
+ * replays the Postman flow with concurrent virtual users over HTTP, then reports the
+ * latency percentiles and throughput of every endpoint. Everything runs locally.
+ *
+ * Options are passed as {@code name=value} arguments, see {@link #DEFAULTS}. With
+ * {@code virtualThreads=1} the application serves the requests on virtual threads, which
+ * needs a Java 21 runtime.
+ */
+public class LoadTest {
+    private static final Map<String, Integer> DEFAULTS = new LinkedHashMap<>();
+
+    static {
+        DEFAULTS.put("virtualUsers", 16);
+        DEFAULTS.put("warmup", 10);
+        DEFAULTS.put("duration", 30);
+        DEFAULTS.put("teachers", 100);
+        DEFAULTS.put("sessions", 1000);
+        DEFAULTS.put("users", 5000);
+        DEFAULTS.put("participants", 10);
+        DEFAULTS.put("rounds", 1);
+        DEFAULTS.put("virtualThreads", 0);
+    }
+
+    private static final int BATCH_SIZE = 500;
+
+    private static volatile boolean recording;
+
+    private static volatile boolean running = true;
+
+    public static void main(String[] args) throws Exception {
+        Map<String, Integer> options = parse(args);
+        // Lets every virtual user keep its connection alive, the JDK default is 5 per host
+        System.setProperty("http.maxConnections", String.valueOf(options.get("virtualUsers")));
+
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(SpringBootSecurityJwtApplication.class)
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--logging.level.root=WARN",
+                        "--spring.jpa.properties.hibernate.generate_statistics=false",
+                        "--oc.app.virtualThreads.enabled=" + (options.get("virtualThreads") != 0));
+        try {
+            List<Long> sessionIds = seed(context, options);
+            int port = ((WebServerApplicationContext) context).getWebServer().getPort();
+
+            Map<String, Object> result = run("http://localhost:" + port, sessionIds, options);
+            report(result);
+        } finally {
+            context.close();
+        }
+    }
+
+    private static Map<String, Integer> parse(String[] args) {
+        Map<String, Integer> options = new LinkedHashMap<>(DEFAULTS);
+        for (String arg : args) {
+            String[] option = arg.split("=", 2);
+            if (option.length != 2 || !DEFAULTS.containsKey(option[0])) {
+                throw new IllegalArgumentException("Unknown option " + arg + ", expected one of " + DEFAULTS.keySet());
+            }
+            options.put(option[0], Integer.valueOf(option[1]));
+        }
+        return options;
+    }
+
+    private static List<Long> seed(ConfigurableApplicationContext context, Map<String, Integer> options) {
+        JdbcTemplate jdbcTemplate = context.getBean(JdbcTemplate.class);
+        Random random = new Random(42);
+
+        long firstTeacher = TestIds.allocate(jdbcTemplate, "TEACHERS", options.get("teachers"));
+        List<Object[]> teachers = new ArrayList<>();
+        for (int i = 0; i < options.get("teachers"); i++) {
+            teachers.add(new Object[]{firstTeacher + i, "Teacher" + i, "Load"});
+        }
+        insert(jdbcTemplate, "INSERT INTO TEACHERS (id, last_name, first_name) VALUES (?, ?, ?)", teachers);
+
+        long firstSession = TestIds.allocate(jdbcTemplate, "SESSIONS", options.get("sessions"));
+        long now = System.currentTimeMillis();
+        List<Object[]> sessions = new ArrayList<>();
+        for (int i = 0; i < options.get("sessions"); i++) {
+            sessions.add(new Object[]{
+                    firstSession + i,
+                    "Session " + i,
+                    "Load test session " + i,
+                    new Timestamp(now + TimeUnit.HOURS.toMillis(1 + random.nextInt(24 * 90))),
+                    firstTeacher + random.nextInt(options.get("teachers"))});
+        }
+        insert(jdbcTemplate, "INSERT INTO SESSIONS (id, name, description, date, teacher_id) VALUES (?, ?, ?, ?, ?)", sessions);
+
+        // Hashing once keeps the seeding fast, logins of seeded users are not part of the flow
+        String password = context.getBean(PasswordEncoder.class).encode("test!1234");
+        long firstUser = TestIds.allocate(jdbcTemplate, "USERS", options.get("users"));
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < options.get("users"); i++) {
+            users.add(new Object[]{firstUser + i, "User" + i, "Load", "user" + i + "@load.test", password});
+        }
+        insert(jdbcTemplate, "INSERT INTO USERS (id, last_name, first_name, admin, email, password) VALUES (?, ?, ?, false, ?, ?)", users);
+
+        List<Object[]> participations = new ArrayList<>();
+        for (int i = 0; i < options.get("sessions"); i++) {
+            int count = Math.min(random.nextInt(options.get("participants") + 1), options.get("users"));
+            for (int j = 0; j < count; j++) {
+                // Consecutive users from a random offset never repeat within a session
+                long user = firstUser + (i * 7919L + j) % options.get("users");
+                participations.add(new Object[]{firstSession + i, user});
+            }
+        }
+        insert(jdbcTemplate, "INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, ?)", participations);
+        jdbcTemplate.update("UPDATE SESSIONS s SET seats_taken = (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = s.id)");
+
+        System.out.printf("Seeded %d teachers, %d sessions, %d users and %d participations%n",
+                teachers.size(), sessions.size(), users.size(), participations.size());
+        return jdbcTemplate.queryForList("SELECT id FROM SESSIONS", Long.class);
+    }
+
+    private static void insert(JdbcTemplate jdbcTemplate, String sql, List<Object[]> rows) {
+        for (int i = 0; i < rows.size(); i += BATCH_SIZE) {
+            jdbcTemplate.batchUpdate(sql, rows.subList(i, Math.min(i + BATCH_SIZE, rows.size())));
+        }
+    }
+
+    private static Map<String, Object> run(String baseUrl, List<Long> sessionIds, Map<String, Integer> options)
+            throws InterruptedException {
+        Map<String, EndpointStats> stats = new LinkedHashMap<>();
+        for (String endpoint : new String[]{VirtualUser.REGISTER, VirtualUser.LOGIN, VirtualUser.LIST_SESSIONS,
+                VirtualUser.PARTICIPATE, VirtualUser.UNPARTICIPATE}) {
+            stats.put(endpoint, new EndpointStats(endpoint));
+        }
+
+        ObjectMapper objectMapper = new ObjectMapper();
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < options.get("virtualUsers"); i++) {
+            Thread thread = new Thread(new VirtualUser(i, baseUrl, sessionIds, stats,
+                    () -> recording, () -> running, objectMapper, options.get("rounds")), "virtual-user-" + i);
+            threads.add(thread);
+            thread.start();
+        }
+
+        System.out.printf("Warming up %d virtual users against %s threads for %ds%n", threads.size(),
+                options.get("virtualThreads") != 0 ? "virtual" : "platform", options.get("warmup"));
+        TimeUnit.SECONDS.sleep(options.get("warmup"));
+
+        System.out.printf("Measuring for %ds%n", options.get("duration"));
+        recording = true;
+        long start = System.nanoTime();
+        TimeUnit.SECONDS.sleep(options.get("duration"));
+        recording = false;
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        running = false;
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        List<Map<String, Object>> endpoints = new ArrayList<>();
+        for (EndpointStats endpoint : stats.values()) {
+            endpoints.add(endpoint.summary(seconds));
+        }
+        Map<String, Object> result = new HashMap<>();
+        result.put("options", options);
+        result.put("seconds", seconds);
+        result.put("endpoints", endpoints);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void report(Map<String, Object> result) throws IOException {
+        String format = "%-46s %9s %9s %9s %9s %9s %9s %9s%n";
+        System.out.printf(format, "Endpoint", "Requests", "Failures", "RPS", "p50 ms", "p95 ms", "p99 ms", "max ms");
+        for (Map<String, Object> endpoint : (List<Map<String, Object>>) result.get("endpoints")) {
+            System.out.printf(format, endpoint.get("endpoint"), endpoint.get("requests"), endpoint.get("failures"),
+                    String.format("%.1f", endpoint.get("rps")), String.format("%.1f", endpoint.get("p50Ms")),
+                    String.format("%.1f", endpoint.get("p95Ms")), String.format("%.1f", endpoint.get("p99Ms")),
+                    String.format("%.1f", endpoint.get("maxMs")));
+        }
+
+        boolean virtual = ((Map<String, Integer>) result.get("options")).get("virtualThreads") != 0;
+        File file = new File(System.getProperty("loadtest.dir", "target"),
+                "loadtest-" + (virtual ? "virtual" : "platform") + ".json");
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(file, result);
+        System.out.println("Result written to " + file);
+    }
+}
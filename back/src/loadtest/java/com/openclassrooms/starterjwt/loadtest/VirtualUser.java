@@ -0,0 +1,169 @@
+package com.openclassrooms.starterjwt.loadtest;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+/**
+ * Replays the flow of the Postman collection in a loop: register, login, then list the
+ * sessions, participate to one of them and withdraw, {@code rounds} times per registered user.
+ * A 503 from the authentication endpoints is retried after its Retry-After delay.
+ */
+public class VirtualUser implements Runnable {
+    static final String REGISTER = "POST /api/auth/register";
+    static final String LOGIN = "POST /api/auth/login";
+    static final String LIST_SESSIONS = "GET /api/session";
+    static final String PARTICIPATE = "POST /api/session/{id}/participate/{userId}";
+    static final String UNPARTICIPATE = "DELETE /api/session/{id}/participate/{userId}";
+
+    private static final String PASSWORD = "test!1234";
+
+    private final int index;
+
+    private final String baseUrl;
+
+    private final List<Long> sessionIds;
+
+    private final Map<String, EndpointStats> stats;
+
+    private final BooleanSupplier recording;
+
+    private final BooleanSupplier running;
+
+    private final ObjectMapper objectMapper;
+
+    private final int rounds;
+
+    public VirtualUser(int index, String baseUrl, List<Long> sessionIds, Map<String, EndpointStats> stats,
+                       BooleanSupplier recording, BooleanSupplier running, ObjectMapper objectMapper, int rounds) {
+        this.index = index;
+        this.baseUrl = baseUrl;
+        this.sessionIds = sessionIds;
+        this.stats = stats;
+        this.recording = recording;
+        this.running = running;
+        this.objectMapper = objectMapper;
+        this.rounds = rounds;
+    }
+
+    @Override
+    public void run() {
+        int iteration = 0;
+        while (this.running.getAsBoolean()) {
+            try {
+                iterate(iteration++);
+            } catch (IOException e) {
+                // Already counted as a failure of the request that broke
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    private void iterate(int iteration) throws IOException, InterruptedException {
+        String email = "vu" + this.index + "-" + iteration + "@load.test";
+
+        Map<String, Object> signup = new HashMap<>();
+        signup.put("email", email);
+        signup.put("firstName", "Virtual");
+        signup.put("lastName", "User");
+        signup.put("password", PASSWORD);
+        if (callWithRetry(REGISTER, "/api/auth/register", signup).status != 200) {
+            return;
+        }
+
+        Map<String, Object> credentials = new HashMap<>();
+        credentials.put("email", email);
+        credentials.put("password", PASSWORD);
+        Response login = callWithRetry(LOGIN, "/api/auth/login", credentials);
+        if (login.status != 200) {
+            return;
+        }
+        JsonNode jwt = this.objectMapper.readTree(login.body);
+        String token = jwt.get("token").asText();
+        long userId = jwt.get("id").asLong();
+
+        for (int round = 0; round < this.rounds && this.running.getAsBoolean(); round++) {
+            call(LIST_SESSIONS, "GET", "/api/session", token, null);
+
+            Long sessionId = this.sessionIds.get(ThreadLocalRandom.current().nextInt(this.sessionIds.size()));
+            String participation = "/api/session/" + sessionId + "/participate/" + userId;
+            call(PARTICIPATE, "POST", participation, token, null);
+            call(UNPARTICIPATE, "DELETE", participation, token, null);
+        }
+    }
+
+    // Register and login are shed with a 503 when the password hashing pool is full
+    private Response callWithRetry(String endpoint, String path, Object body) throws IOException, InterruptedException {
+        Response response = call(endpoint, "POST", path, null, body);
+        while (response.status == 503 && this.running.getAsBoolean()) {
+            TimeUnit.SECONDS.sleep(response.retryAfter);
+            response = call(endpoint, "POST", path, null, body);
+        }
+        return response;
+    }
+
+    private Response call(String endpoint, String method, String path, String token, Object body) throws IOException {
+        long start = System.nanoTime();
+        Response response = new Response();
+        try {
+            HttpURLConnection connection = (HttpURLConnection) new URL(this.baseUrl + path).openConnection();
+            connection.setRequestMethod(method);
+            if (token != null) {
+                connection.setRequestProperty("Authorization", "Bearer " + token);
+            }
+            if (body != null) {
+                connection.setDoOutput(true);
+                connection.setRequestProperty("Content-Type", "application/json");
+                try (OutputStream out = connection.getOutputStream()) {
+                    this.objectMapper.writeValue(out, body);
+                }
+            }
+
+            response.status = connection.getResponseCode();
+            response.retryAfter = connection.getHeaderFieldInt("Retry-After", 1);
+            // Reading the whole body lets the connection be reused by keep-alive
+            InputStream in = response.status < 400 ? connection.getInputStream() : connection.getErrorStream();
+            response.body = in == null ? "" : read(in);
+            return response;
+        } finally {
+            if (this.recording.getAsBoolean()) {
+                this.stats.get(endpoint).record(System.nanoTime() - start, response.status < 200 || response.status >= 300);
+            }
+        }
+    }
+
+    private static String read(InputStream in) throws IOException {
+        try (InputStream input = in) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            byte[] buffer = new byte[8192];
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static class Response {
+        private int status;
+
+        private String body;
+
+        private int retryAfter;
+    }
+}
@@ -2,9 +2,11 @@ package com.openclassrooms.starterjwt;
 
 import org.springframework.boot.SpringApplication;
 import org.springframework.boot.autoconfigure.SpringBootApplication;
+import org.springframework.boot.autoconfigure.r2dbc.R2dbcAutoConfiguration;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 
-@SpringBootApplication
+// The R2DBC connection factory belongs to the reactive read application, here it would replace the DataSource
+@SpringBootApplication(exclude = R2dbcAutoConfiguration.class)
 @EnableJpaAuditing
 public class SpringBootSecurityJwtApplication {
 	public static void main(String[] args) {
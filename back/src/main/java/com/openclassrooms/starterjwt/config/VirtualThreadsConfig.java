@@ -0,0 +1,67 @@
+package com.openclassrooms.starterjwt.config;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+import org.apache.coyote.ProtocolHandler;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
+import org.springframework.scheduling.annotation.AsyncAnnotationBeanPostProcessor;
+
+/**
+ * Opt-in mode running servlet requests, MVC async work (the session export) and @Async methods on
+ * virtual threads. The Tomcat thread pool then no longer caps concurrency, the HikariCP pool does:
+ * requests wait for a connection up to spring.datasource.hikari.connection-timeout.
+ * BCrypt keeps its own pool of platform threads in PasswordHashingExecutor, as it is CPU bound.
+ *
+ * Virtual threads need a Java 21 runtime, while the code targets Java 17, the highest release
+ * supported by Spring Boot 2.6, so they are created through reflection.
+ */
+@Configuration
+@ConditionalOnProperty(name = "oc.app.virtualThreads.enabled", havingValue = "true")
+public class VirtualThreadsConfig {
+    @Bean(destroyMethod = "shutdown")
+    public ExecutorService virtualThreadExecutor(@Value("${oc.app.virtualThreads.tracePinned:short}") String tracePinned) {
+        // Read by the JDK when the first virtual thread is created, so it has to be set before
+        if (!tracePinned.isEmpty() && System.getProperty("jdk.tracePinnedThreads") == null) {
+            System.setProperty("jdk.tracePinnedThreads", tracePinned);
+        }
+        return newVirtualThreadPerTaskExecutor("virtual-");
+    }
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<ProtocolHandler> virtualThreadProtocolHandlerCustomizer(ExecutorService virtualThreadExecutor) {
+        return protocolHandler -> protocolHandler.setExecutor(virtualThreadExecutor);
+    }
+
+    // Replaces the thread pool auto-configured by Spring Boot
+    @Bean(name = {TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME,
+            AsyncAnnotationBeanPostProcessor.DEFAULT_TASK_EXECUTOR_BEAN_NAME})
+    public AsyncTaskExecutor applicationTaskExecutor(ExecutorService virtualThreadExecutor) {
+        return new TaskExecutorAdapter(virtualThreadExecutor);
+    }
+
+    public static ExecutorService newVirtualThreadPerTaskExecutor(String namePrefix) {
+        if (Runtime.version().feature() < 21) {
+            throw new IllegalStateException("Virtual threads need Java 21 or later, running on " + Runtime.version());
+        }
+
+        try {
+            Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+            Class<?> builderType = Class.forName("java.lang.Thread$Builder");
+            builderType.getMethod("name", String.class, long.class).invoke(builder, namePrefix, 0L);
+            ThreadFactory factory = (ThreadFactory) builderType.getMethod("factory").invoke(builder);
+            return (ExecutorService) Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class)
+                    .invoke(null, factory);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException("Cannot create the virtual thread executor", e);
+        }
+    }
+}
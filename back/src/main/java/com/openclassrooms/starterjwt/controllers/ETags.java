@@ -0,0 +1,20 @@
+package com.openclassrooms.starterjwt.controllers;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+
+/**
+ * Strong ETags derived from a row count and the latest update timestamp,
+ * so they can be computed without loading the resource itself. Shared with the
+ * reactive read API, which must answer with the same ETags.
+ */
+public final class ETags {
+
+    private ETags() {
+    }
+
+    public static String of(String resource, long count, LocalDateTime updatedAt) {
+        long version = updatedAt == null ? 0 : updatedAt.toEpochSecond(ZoneOffset.UTC) * 1_000_000_000L + updatedAt.getNano();
+        return "\"" + resource + "-" + count + "-" + Long.toString(version, 36) + "\"";
+    }
+}
@@ -4,49 +4,145 @@ package com.openclassrooms.starterjwt.controllers;
 import com.openclassrooms.starterjwt.dto.SessionDto;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.payload.request.RecurringSessionRequest;
+import com.openclassrooms.starterjwt.payload.response.SessionPageResponse;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.repository.projection.SessionVersion;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import com.openclassrooms.starterjwt.services.SessionPage;
 import com.openclassrooms.starterjwt.services.SessionService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
 
 import javax.validation.Valid;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/session")
 @Log4j2
 public class SessionController {
+    private static final int EXPORT_CHUNK_SIZE = 8192;
+
     private final SessionMapper sessionMapper;
     private final SessionService sessionService;
+    private final ObjectMapper objectMapper;
+    private final AsyncTaskExecutor taskExecutor;
+
+    @Value("${oc.app.exportTimeoutMillis:600000}")
+    private long exportTimeoutMillis;
 
 
     public SessionController(SessionService sessionService,
-                             SessionMapper sessionMapper) {
+                             SessionMapper sessionMapper,
+                             ObjectMapper objectMapper,
+                             @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME) AsyncTaskExecutor taskExecutor) {
         this.sessionMapper = sessionMapper;
         this.sessionService = sessionService;
+        this.objectMapper = objectMapper;
+        this.taskExecutor = taskExecutor;
     }
 
+    // The ETag is read before the body, so a concurrent write can only make the
+    // client refetch once more, never keep a stale copy.
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest request) {
         try {
-            Session session = this.sessionService.getById(Long.valueOf(id));
+            SessionVersion version = this.sessionService.getVersion(Long.valueOf(id));
+
+            if (version.getCount() == 0) {
+                return ResponseEntity.notFound().build();
+            }
+
+            String eTag = ETags.of("session-" + id, version.getCount(), version.getUpdatedAt());
+            if (request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+
+            SessionSummary session = this.sessionService.getSummaryById(Long.valueOf(id));
 
             if (session == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
+            return ResponseEntity.ok().eTag(eTag).body(this.sessionMapper.toDto(session, this.sessionService.findParticipantIds(session.getId())));
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
-        List<Session> sessions = this.sessionService.findAll();
+    public ResponseEntity<?> findAll(WebRequest request) {
+        SessionVersion version = this.sessionService.getVersion();
+        String eTag = ETags.of("sessions", version.getCount(), version.getUpdatedAt());
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
 
-        return ResponseEntity.ok().body(this.sessionMapper.toDto(sessions));
+        List<SessionSummary> sessions = this.sessionService.findAllSummaries();
+        Map<Long, List<Long>> participants = this.sessionService.findAllParticipantIds();
+
+        return ResponseEntity.ok().eTag(eTag).body(this.sessionMapper.toDto(sessions, participants));
+    }
+
+    @GetMapping(params = "size")
+    public ResponseEntity<?> findPage(@RequestParam("size") Integer size,
+                                      @RequestParam(value = "cursor", required = false) String cursor) {
+        SessionPage page = this.sessionService.findPage(cursor, size);
+
+        return ResponseEntity.ok().body(new SessionPageResponse(this.sessionMapper.toDto(page.getSessions(), page.getParticipants()), page.getNext()));
+    }
+
+    // One JSON document per line, written while the sessions are read. The export may run for minutes,
+    // so it has its own timeout instead of raising the one of every async request.
+    @GetMapping("/export")
+    public ResponseEntity<ResponseBodyEmitter> export(@RequestParam(value = "from", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date from,
+                                                      @RequestParam(value = "to", required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) Date to) {
+        if (from != null && to != null && !from.before(to)) {
+            return ResponseEntity.badRequest().build();
+        }
+
+        ResponseBodyEmitter emitter = new ResponseBodyEmitter(this.exportTimeoutMillis);
+        this.taskExecutor.execute(() -> {
+            try {
+                // Every send flushes the response, so lines are sent in chunks
+                ByteArrayOutputStream chunk = new ByteArrayOutputStream(EXPORT_CHUNK_SIZE);
+                this.sessionService.forEachSession(from, to, (session, users) -> {
+                    try {
+                        chunk.write(this.objectMapper.writeValueAsBytes(this.sessionMapper.toDto(session, users)));
+                        chunk.write('\n');
+                        if (chunk.size() >= EXPORT_CHUNK_SIZE) {
+                            emitter.send(chunk.toByteArray(), MediaType.APPLICATION_NDJSON);
+                            chunk.reset();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                emitter.send(chunk.toByteArray(), MediaType.APPLICATION_NDJSON);
+                emitter.complete();
+            } catch (IOException | RuntimeException e) {
+                emitter.completeWithError(e);
+            }
+        });
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(emitter);
     }
 
     @PostMapping()
@@ -59,6 +155,16 @@ public class SessionController {
         return ResponseEntity.ok().body(this.sessionMapper.toDto(session));
     }
 
+    // The template is mapped once, so its teacher and participants are looked up once for all the occurrences
+    @PostMapping("/recurring")
+    public ResponseEntity<?> createRecurring(@Valid @RequestBody RecurringSessionRequest request) {
+        List<Long> ids = this.sessionService.createWeekly(this.sessionMapper.toEntity(request.getSession()),
+                request.getOccurrences(), request.getUntil());
+
+        log.info("Created {} weekly sessions", ids.size());
+        return ResponseEntity.ok().body(ids);
+    }
+
     @PutMapping("{id}")
     public ResponseEntity<?> update(@PathVariable("id") String id, @Valid @RequestBody SessionDto sessionDto) {
         try {
@@ -89,7 +195,11 @@ public class SessionController {
     @PostMapping("{id}/participate/{userId}")
     public ResponseEntity<?> participate(@PathVariable("id") String id, @PathVariable("userId") String userId) {
         try {
-            this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
+            ParticipationStatus status = this.sessionService.participate(Long.parseLong(id), Long.parseLong(userId));
+
+            if (status == ParticipationStatus.WAITLISTED) {
+                return ResponseEntity.accepted().build();
+            }
 
             return ResponseEntity.ok().build();
         } catch (NumberFormatException e) {
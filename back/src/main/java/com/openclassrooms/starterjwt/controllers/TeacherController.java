@@ -1,45 +1,62 @@
 package com.openclassrooms.starterjwt.controllers;
 
-import com.openclassrooms.starterjwt.mapper.TeacherMapper;
-import com.openclassrooms.starterjwt.models.Teacher;
-import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.dto.TeacherDto;
+import com.openclassrooms.starterjwt.services.TeacherCatalog;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
 import java.util.List;
+import java.util.Objects;
 
 @CrossOrigin(origins = "*", maxAge = 3600)
 @RestController
 @RequestMapping("/api/teacher")
 public class TeacherController {
-    private final TeacherMapper teacherMapper;
-    private final TeacherService teacherService;
+    private final TeacherCatalog teacherCatalog;
 
 
-    public TeacherController(TeacherService teacherService,
-                             TeacherMapper teacherMapper) {
-        this.teacherMapper = teacherMapper;
-        this.teacherService = teacherService;
+    public TeacherController(TeacherCatalog teacherCatalog) {
+        this.teacherCatalog = teacherCatalog;
     }
 
     @GetMapping("/{id}")
-    public ResponseEntity<?> findById(@PathVariable("id") String id) {
+    public ResponseEntity<?> findById(@PathVariable("id") String id, WebRequest request) {
         try {
-            Teacher teacher = this.teacherService.findById(Long.valueOf(id));
+            TeacherDto teacher = this.teacherCatalog.findById(Long.valueOf(id));
 
             if (teacher == null) {
                 return ResponseEntity.notFound().build();
             }
 
-            return ResponseEntity.ok().body(this.teacherMapper.toDto(teacher));
+            String eTag = ETags.of("teacher-" + id, 1, teacher.getUpdatedAt());
+            if (request.checkNotModified(eTag)) {
+                return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+            }
+
+            return ResponseEntity.ok().eTag(eTag).body(teacher);
         } catch (NumberFormatException e) {
             return ResponseEntity.badRequest().build();
         }
     }
 
     @GetMapping()
-    public ResponseEntity<?> findAll() {
-        List<Teacher> teachers = this.teacherService.findAll();
+    public ResponseEntity<?> findAll(WebRequest request) {
+        List<TeacherDto> teachers = this.teacherCatalog.findAll();
+        LocalDateTime updatedAt = teachers.stream()
+                .map(TeacherDto::getUpdatedAt)
+                .filter(Objects::nonNull)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+
+        String eTag = ETags.of("teachers", teachers.size(), updatedAt);
+        if (request.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(eTag).build();
+        }
 
-        return ResponseEntity.ok().body(this.teacherMapper.toDto(teachers));
+        return ResponseEntity.ok().eTag(eTag).body(teachers);
     }
 }
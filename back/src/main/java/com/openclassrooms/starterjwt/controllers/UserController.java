@@ -1,7 +1,11 @@
 package com.openclassrooms.starterjwt.controllers;
 
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.response.SessionPageResponse;
+import com.openclassrooms.starterjwt.services.SessionPage;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -17,12 +21,18 @@ import java.util.Objects;
 public class UserController {
     private final UserMapper userMapper;
     private final UserService userService;
+    private final SessionService sessionService;
+    private final SessionMapper sessionMapper;
 
 
     public UserController(UserService userService,
-                             UserMapper userMapper) {
+                             UserMapper userMapper,
+                             SessionService sessionService,
+                             SessionMapper sessionMapper) {
         this.userMapper = userMapper;
         this.userService = userService;
+        this.sessionService = sessionService;
+        this.sessionMapper = sessionMapper;
     }
 
     @GetMapping("/{id}")
@@ -40,6 +50,25 @@ public class UserController {
         }
     }
 
+    @GetMapping("/{id}/sessions")
+    public ResponseEntity<?> findUpcomingSessions(@PathVariable("id") String id,
+                                                  @RequestParam(value = "size", required = false) Integer size,
+                                                  @RequestParam(value = "cursor", required = false) String cursor) {
+        try {
+            User user = this.userService.findById(Long.valueOf(id));
+
+            if (user == null) {
+                return ResponseEntity.notFound().build();
+            }
+
+            SessionPage page = this.sessionService.findUpcomingPage(user.getId(), cursor, size);
+
+            return ResponseEntity.ok().body(new SessionPageResponse(this.sessionMapper.toDto(page.getSessions(), page.getParticipants()), page.getNext()));
+        } catch (NumberFormatException e) {
+            return ResponseEntity.badRequest().build();
+        }
+    }
+
     @DeleteMapping("{id}")
     public ResponseEntity<?> save(@PathVariable("id") String id) {
         try {
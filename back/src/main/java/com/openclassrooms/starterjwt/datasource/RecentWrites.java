@@ -0,0 +1,48 @@
+package com.openclassrooms.starterjwt.datasource;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Time of the last read-write transaction committed by this process, whose changes the replica
+ * may not have applied yet. It is recorded by a synchronization of the transaction itself, so
+ * writes made without a security principal (sign-ups on the password-hashing pool, async work)
+ * count as well, and every reader is kept on the primary during the stickiness window, not only
+ * the one who wrote.
+ */
+public class RecentWrites {
+    private final long stickinessNanos;
+
+    private final AtomicLong lastCommitNanos;
+
+    private final TransactionSynchronization recordCommit = new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+            record();
+        }
+    };
+
+    public RecentWrites(long stickinessMillis) {
+        this.stickinessNanos = TimeUnit.MILLISECONDS.toNanos(stickinessMillis);
+        this.lastCommitNanos = new AtomicLong(System.nanoTime() - this.stickinessNanos);
+    }
+
+    // Registered once per transaction, rolled back transactions changed nothing
+    public void recordOnCommit() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && !TransactionSynchronizationManager.getSynchronizations().contains(this.recordCommit)) {
+            TransactionSynchronizationManager.registerSynchronization(this.recordCommit);
+        }
+    }
+
+    public boolean isRecent() {
+        return System.nanoTime() - this.lastCommitNanos.get() < this.stickinessNanos;
+    }
+
+    private void record() {
+        this.lastCommitNanos.accumulateAndGet(System.nanoTime(), (last, now) -> now - last > 0 ? now : last);
+    }
+}
@@ -0,0 +1,67 @@
+package com.openclassrooms.starterjwt.datasource;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.boot.jdbc.DataSourceBuilder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * Opt-in read replica: @Transactional(readOnly = true) work of the services runs on a second
+ * HikariCP pool (oc.app.replica.*), everything else on the primary pool (spring.datasource.*),
+ * which replaces the one auto-configured by Spring Boot. Flyway only migrates the primary.
+ * <p>
+ * Replication lag is hidden from the reads that follow a write: every read stays on the primary
+ * for oc.app.replica.stickinessMillis after this instance committed a read-write transaction.
+ * Writes committed by other instances, and a replica lagging more than the window, can still
+ * be read stale from the replica, though never through the second-level cache.
+ */
+@Configuration
+@ConditionalOnProperty(name = "oc.app.replica.enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        dataSource.setPoolName("primary");
+        return dataSource;
+    }
+
+    @Bean
+    @ConfigurationProperties("oc.app.replica.hikari")
+    public HikariDataSource replicaDataSource(@Value("${oc.app.replica.url}") String url,
+                                              @Value("${oc.app.replica.username:}") String username,
+                                              @Value("${oc.app.replica.password:}") String password) {
+        HikariDataSource dataSource = DataSourceBuilder.create()
+                .type(HikariDataSource.class)
+                .url(url)
+                .username(username)
+                .password(password)
+                .build();
+        dataSource.setPoolName("replica");
+        return dataSource;
+    }
+
+    @Bean
+    public RecentWrites recentWrites(@Value("${oc.app.replica.stickinessMillis:2000}") long stickinessMillis) {
+        return new RecentWrites(stickinessMillis);
+    }
+
+    // The pools are injected as DataSource, the SQL counting proxy wraps them
+    @Bean
+    @Primary
+    public DataSource dataSource(@Qualifier("primaryDataSource") DataSource primaryDataSource,
+                                 @Qualifier("replicaDataSource") DataSource replicaDataSource,
+                                 RecentWrites recentWrites) {
+        return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource, recentWrites));
+    }
+}
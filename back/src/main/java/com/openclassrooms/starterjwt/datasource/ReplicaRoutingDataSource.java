@@ -0,0 +1,68 @@
+package com.openclassrooms.starterjwt.datasource;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.hibernate.CacheMode;
+import org.hibernate.Session;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.orm.jpa.EntityManagerHolder;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Hands out replica connections to read-only transactions, unless a write was committed
+ * recently, and primary connections to everything else.
+ * <p>
+ * The transaction flags are only set once JpaTransactionManager has begun the transaction,
+ * which already asks for a connection, so this must sit behind a LazyConnectionDataSourceProxy.
+ * <p>
+ * The Hibernate session of a replica transaction still reads the second-level cache but no
+ * longer fills it: a lagging replica would otherwise put back the rows that a write has just
+ * evicted, and serve them to everyone from the cache.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+    public enum Route {
+        PRIMARY,
+        REPLICA
+    }
+
+    private final RecentWrites recentWrites;
+
+    public ReplicaRoutingDataSource(DataSource primary, DataSource replica, RecentWrites recentWrites) {
+        this.recentWrites = recentWrites;
+
+        Map<Object, Object> targets = new HashMap<>();
+        targets.put(Route.PRIMARY, primary);
+        targets.put(Route.REPLICA, replica);
+        setTargetDataSources(targets);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            // Statements outside of any transaction are reads as well, they do not keep readers on the primary
+            if (TransactionSynchronizationManager.isActualTransactionActive()) {
+                this.recentWrites.recordOnCommit();
+            }
+            return Route.PRIMARY;
+        }
+
+        if (this.recentWrites.isRecent()) {
+            return Route.PRIMARY;
+        }
+        stopCachePuts();
+        return Route.REPLICA;
+    }
+
+    // The entity manager is closed with the transaction, which ends the cache mode as well
+    private static void stopCachePuts() {
+        TransactionSynchronizationManager.getResourceMap().values().stream()
+                .filter(EntityManagerHolder.class::isInstance)
+                .map(holder -> ((EntityManagerHolder) holder).getEntityManager().unwrap(Session.class))
+                .forEach(session -> session.setCacheMode(CacheMode.GET));
+    }
+}
@@ -1,8 +1,12 @@
 package com.openclassrooms.starterjwt.mapper;
 
 import com.openclassrooms.starterjwt.dto.SessionDto;
+import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.services.TeacherCatalog;
 import com.openclassrooms.starterjwt.services.TeacherService;
 import com.openclassrooms.starterjwt.services.UserService;
 import org.mapstruct.Mapper;
@@ -11,9 +15,13 @@ import org.mapstruct.Mappings;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Component
@@ -23,15 +31,47 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
     @Autowired
     TeacherService teacherService;
     @Autowired
+    TeacherCatalog teacherCatalog;
+    @Autowired
     UserService userService;
 
     @Mappings({
             @Mapping(source = "description", target = "description"),
-            @Mapping(target = "teacher", expression = "java(sessionDto.getTeacher_id() != null ? this.teacherService.findById(sessionDto.getTeacher_id()) : null)"),
-            @Mapping(target = "users", expression = "java(Optional.ofNullable(sessionDto.getUsers()).orElseGet(Collections::emptyList).stream().map(user_id -> { User user = this.userService.findById(user_id); if (user != null) { return user; } return null; }).collect(Collectors.toList()))"),
+            @Mapping(target = "teacher", expression = "java(this.resolveTeacher(sessionDto.getTeacher_id()))"),
+            @Mapping(target = "users", expression = "java(this.resolveUsers(sessionDto.getUsers()))"),
+            @Mapping(target = "seatsTaken", ignore = true),
     })
     public abstract Session toEntity(SessionDto sessionDto);
 
+    // Only the foreign key is written, but an unknown id must be a client error rather than a
+    // constraint violation. The teacher catalog answers without a query for known teachers.
+    protected Teacher resolveTeacher(Long teacherId) {
+        if (teacherId == null) {
+            return null;
+        }
+        if (this.teacherCatalog.findById(teacherId) == null) {
+            throw new BadRequestException("Unknown teacher id: " + teacherId);
+        }
+        return this.teacherService.getReference(teacherId);
+    }
+
+    protected List<User> resolveUsers(List<Long> userIds) {
+        if (userIds == null || userIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+
+        List<Long> distinctIds = userIds.stream().distinct().collect(Collectors.toList());
+        Map<Long, User> users = this.userService.findAllById(distinctIds).stream()
+                .collect(Collectors.toMap(User::getId, Function.identity()));
+
+        List<Long> unknownIds = distinctIds.stream().filter(id -> !users.containsKey(id)).collect(Collectors.toList());
+        if (!unknownIds.isEmpty()) {
+            throw new BadRequestException("Unknown user ids: " + unknownIds);
+        }
+
+        return distinctIds.stream().map(users::get).collect(Collectors.toList());
+    }
+
 
     @Mappings({
             @Mapping(source = "description", target = "description"),
@@ -39,4 +79,16 @@ public abstract class SessionMapper implements EntityMapper<SessionDto, Session>
             @Mapping(target = "users", expression = "java(Optional.ofNullable(session.getUsers()).orElseGet(Collections::emptyList).stream().map(u -> u.getId()).collect(Collectors.toList()))"),
     })
     public abstract SessionDto toDto(Session session);
+
+    @Mappings({
+            @Mapping(source = "summary.teacherId", target = "teacher_id"),
+            @Mapping(source = "users", target = "users"),
+    })
+    public abstract SessionDto toDto(SessionSummary summary, List<Long> users);
+
+    public List<SessionDto> toDto(List<SessionSummary> summaries, Map<Long, List<Long>> participants) {
+        return summaries.stream()
+                .map(summary -> toDto(summary, participants.getOrDefault(summary.getId(), Collections.emptyList())))
+                .collect(Collectors.toList());
+    }
 }
@@ -0,0 +1,122 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import java.util.List;
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import javax.sql.DataSource;
+
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.openclassrooms.starterjwt.security.jwt.JwtTokenCache;
+import com.openclassrooms.starterjwt.security.services.PasswordHashingExecutor;
+import com.openclassrooms.starterjwt.services.TeacherCatalog;
+
+import io.micrometer.core.aop.TimedAspect;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import net.ttddyy.dsproxy.ExecutionInfo;
+import net.ttddyy.dsproxy.QueryInfo;
+import net.ttddyy.dsproxy.listener.QueryExecutionListener;
+import net.ttddyy.dsproxy.listener.logging.SLF4JLogLevel;
+import net.ttddyy.dsproxy.support.ProxyDataSource;
+import net.ttddyy.dsproxy.support.ProxyDataSourceBuilder;
+
+/**
+ * Application meters on top of the ones auto-configured by Spring Boot (http.server.requests,
+ * spring.data.repository.invocations, hikaricp, jvm).
+ */
+@Configuration
+public class MetricsConfig {
+    // Statements are logged on the "sql" logger at DEBUG level, in place of spring.jpa.show-sql.
+    // Wrappers such as the replica routing data source are left alone, their pools are proxied,
+    // so that each statement is counted once.
+    @Bean
+    public static BeanPostProcessor dataSourceProxyPostProcessor() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (!(bean instanceof DataSource) || bean instanceof ProxyDataSource || bean instanceof DelegatingDataSource) {
+                    return bean;
+                }
+                return ProxyDataSourceBuilder.create((DataSource) bean)
+                        .name(beanName)
+                        .logQueryBySlf4j(SLF4JLogLevel.DEBUG, "sql")
+                        .listener(new QueryExecutionListener() {
+                            @Override
+                            public void beforeQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                            }
+
+                            @Override
+                            public void afterQuery(ExecutionInfo execInfo, List<QueryInfo> queryInfoList) {
+                                QueryCounter.record(execInfo.getElapsedTime());
+                            }
+                        })
+                        .build();
+            }
+        };
+    }
+
+    // Required for @Timed outside of the web handlers
+    @Bean
+    public TimedAspect timedAspect(MeterRegistry meterRegistry) {
+        return new TimedAspect(meterRegistry);
+    }
+
+    @Bean
+    public MeterBinder jwtTokenCacheMetrics(JwtTokenCache tokenCache) {
+        return registry -> {
+            FunctionCounter.builder("cache.gets", tokenCache, JwtTokenCache::getHitCount)
+                    .tags("cache", "jwt-token", "result", "hit")
+                    .register(registry);
+            FunctionCounter.builder("cache.gets", tokenCache, JwtTokenCache::getMissCount)
+                    .tags("cache", "jwt-token", "result", "miss")
+                    .register(registry);
+            Gauge.builder("cache.size", tokenCache, JwtTokenCache::size)
+                    .tag("cache", "jwt-token")
+                    .register(registry);
+        };
+    }
+
+    @Bean
+    public MeterBinder teacherCatalogMetrics(TeacherCatalog teacherCatalog) {
+        return registry -> {
+            bindCacheStats(registry, "teacher", teacherCatalog, TeacherCatalog::getTeacherStats);
+            bindCacheStats(registry, "teacher-catalog", teacherCatalog, TeacherCatalog::getCatalogStats);
+        };
+    }
+
+    @Bean
+    public MeterBinder passwordHashingExecutorMetrics(PasswordHashingExecutor executor) {
+        return registry -> {
+            Gauge.builder("executor.active", executor, PasswordHashingExecutor::getActiveCount)
+                    .tag("name", "password-hashing")
+                    .register(registry);
+            Gauge.builder("executor.queued", executor, PasswordHashingExecutor::getQueueSize)
+                    .tag("name", "password-hashing")
+                    .register(registry);
+            FunctionCounter.builder("executor.completed", executor, PasswordHashingExecutor::getCompletedCount)
+                    .tag("name", "password-hashing")
+                    .register(registry);
+            FunctionCounter.builder("executor.rejected", executor, PasswordHashingExecutor::getRejectedCount)
+                    .tag("name", "password-hashing")
+                    .register(registry);
+        };
+    }
+
+    private static void bindCacheStats(MeterRegistry registry, String cache, TeacherCatalog catalog,
+                                       Function<TeacherCatalog, CacheStats> stats) {
+        ToDoubleFunction<TeacherCatalog> hits = c -> stats.apply(c).hitCount();
+        ToDoubleFunction<TeacherCatalog> misses = c -> stats.apply(c).missCount();
+        ToDoubleFunction<TeacherCatalog> evictions = c -> stats.apply(c).evictionCount();
+        FunctionCounter.builder("cache.gets", catalog, hits).tags("cache", cache, "result", "hit").register(registry);
+        FunctionCounter.builder("cache.gets", catalog, misses).tags("cache", cache, "result", "miss").register(registry);
+        FunctionCounter.builder("cache.evictions", catalog, evictions).tag("cache", cache).register(registry);
+    }
+}
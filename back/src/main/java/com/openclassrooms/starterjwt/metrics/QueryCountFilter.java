@@ -0,0 +1,83 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+/**
+ * Counts the SQL statements of every HTTP request, publishes them as metrics and response headers,
+ * and warns about requests running more statements than the threshold, which usually means an N+1.
+ * Statements run on other threads, such as the password hashing pool, are not attributed to the request.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class QueryCountFilter extends OncePerRequestFilter {
+    public static final String COUNT_HEADER = "X-Query-Count";
+
+    public static final String TIME_HEADER = "X-Query-Time";
+
+    private static final Logger logger = LoggerFactory.getLogger(QueryCountFilter.class);
+
+    private final MeterRegistry meterRegistry;
+
+    private final int warnThreshold;
+
+    public QueryCountFilter(MeterRegistry meterRegistry,
+            @Value("${oc.app.queryCountWarnThreshold:10}") int warnThreshold) {
+        this.meterRegistry = meterRegistry;
+        this.warnThreshold = warnThreshold;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
+            throws ServletException, IOException {
+        QueryCounter counter = QueryCounter.start();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            QueryCounter.stop();
+            // Responses with a body already got the headers from QueryCountHeaderAdvice
+            if (!response.isCommitted()) {
+                response.setHeader(COUNT_HEADER, String.valueOf(counter.getCount()));
+                response.setHeader(TIME_HEADER, String.valueOf(counter.getElapsedMillis()));
+            }
+            report(request, counter);
+        }
+    }
+
+    private void report(HttpServletRequest request, QueryCounter counter) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = pattern != null ? pattern.toString() : "UNKNOWN";
+
+        DistributionSummary.builder("http.server.requests.queries")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(counter.getCount());
+        Timer.builder("http.server.requests.query.time")
+                .tags("method", request.getMethod(), "uri", uri)
+                .register(meterRegistry)
+                .record(counter.getElapsedMillis(), TimeUnit.MILLISECONDS);
+
+        if (counter.getCount() > warnThreshold) {
+            logger.warn("{} {} executed {} SQL statements in {} ms, above the threshold of {}",
+                    request.getMethod(), uri, counter.getCount(), counter.getElapsedMillis(), warnThreshold);
+        }
+    }
+}
@@ -0,0 +1,33 @@
+package com.openclassrooms.starterjwt.metrics;
+
+import org.springframework.core.MethodParameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.web.bind.annotation.ControllerAdvice;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyAdvice;
+
+/**
+ * Sets the query count headers right before a body is written, as the response may be committed
+ * by the time {@link QueryCountFilter} regains control.
+ */
+@ControllerAdvice
+public class QueryCountHeaderAdvice implements ResponseBodyAdvice<Object> {
+    @Override
+    public boolean supports(MethodParameter returnType, Class<? extends HttpMessageConverter<?>> converterType) {
+        return true;
+    }
+
+    @Override
+    public Object beforeBodyWrite(Object body, MethodParameter returnType, MediaType selectedContentType,
+            Class<? extends HttpMessageConverter<?>> selectedConverterType, ServerHttpRequest request,
+            ServerHttpResponse response) {
+        QueryCounter counter = QueryCounter.current();
+        if (counter != null) {
+            response.getHeaders().set(QueryCountFilter.COUNT_HEADER, String.valueOf(counter.getCount()));
+            response.getHeaders().set(QueryCountFilter.TIME_HEADER, String.valueOf(counter.getElapsedMillis()));
+        }
+        return body;
+    }
+}
@@ -0,0 +1,48 @@
+package com.openclassrooms.starterjwt.metrics;
+
+/**
+ * SQL statements executed by the current thread since {@link #start()}, as seen by the datasource proxy.
+ * {@link QueryCountFilter} opens one per HTTP request, and tests can open their own to assert how many
+ * statements a call runs.
+ */
+public final class QueryCounter {
+    private static final ThreadLocal<QueryCounter> CURRENT = new ThreadLocal<>();
+
+    private int count;
+
+    private long elapsedMillis;
+
+    private QueryCounter() {
+    }
+
+    public static QueryCounter start() {
+        QueryCounter counter = new QueryCounter();
+        CURRENT.set(counter);
+        return counter;
+    }
+
+    // Null when no counter was started on this thread
+    public static QueryCounter current() {
+        return CURRENT.get();
+    }
+
+    public static void stop() {
+        CURRENT.remove();
+    }
+
+    static void record(long elapsedMillis) {
+        QueryCounter counter = CURRENT.get();
+        if (counter != null) {
+            counter.count++;
+            counter.elapsedMillis += elapsedMillis;
+        }
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+
+    public long getElapsedMillis() {
+        return this.elapsedMillis;
+    }
+}
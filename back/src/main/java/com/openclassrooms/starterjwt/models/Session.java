@@ -3,12 +3,18 @@ package com.openclassrooms.starterjwt.models;
 
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.ColumnDefault;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
 
 import javax.persistence.*;
 import javax.validation.constraints.NotBlank;
+import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
@@ -16,6 +22,8 @@ import java.util.Date;
 import java.util.List;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "session")
 @Table(name = "SESSIONS")
 @EntityListeners(AuditingEntityListener.class)
 @Data
@@ -26,8 +34,15 @@ import java.util.List;
 @AllArgsConstructor
 @ToString
 public class Session {
+    // Ids come from a table in blocks of 50, IDENTITY would disable JDBC insert batching
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "SESSIONS_SEQ")
+    @GenericGenerator(name = "SESSIONS_SEQ", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+        @Parameter(name = "sequence_name", value = "SESSIONS_SEQ"),
+        @Parameter(name = "force_table_use", value = "true"),
+        @Parameter(name = "increment_size", value = "50"),
+        @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     private Long id;
 
     @NotBlank
@@ -41,10 +56,19 @@ public class Session {
     @Size(max = 2500)
     private String description;
 
+    @Min(1)
+    private Integer capacity;
+
+    // Maintained by SessionRepository seat queries only, never written from the entity
+    @ColumnDefault("0")
+    @Column(name = "seats_taken", nullable = false, insertable = false, updatable = false)
+    private Integer seatsTaken;
+
     @OneToOne
     @JoinColumn(name = "teacher_id", referencedColumnName = "id")
     private Teacher teacher;
 
+    @Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "session-users")
     @ManyToMany(fetch = FetchType.EAGER)
     @JoinTable(
             name = "PARTICIPATE",
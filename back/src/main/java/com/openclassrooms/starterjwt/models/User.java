@@ -2,6 +2,10 @@ package com.openclassrooms.starterjwt.models;
 
 import lombok.*;
 import lombok.experimental.Accessors;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
 import org.hibernate.annotations.UpdateTimestamp;
 import org.springframework.data.annotation.CreatedDate;
 import org.springframework.data.jpa.domain.support.AuditingEntityListener;
@@ -12,6 +16,8 @@ import javax.validation.constraints.Size;
 import java.time.LocalDateTime;
 
 @Entity
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE, region = "user")
 @Table(name = "USERS", uniqueConstraints = {
     @UniqueConstraint(columnNames = "email")
 })
@@ -26,7 +32,13 @@ import java.time.LocalDateTime;
 @ToString
 public class User {
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "USERS_SEQ")
+  @GenericGenerator(name = "USERS_SEQ", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+    @Parameter(name = "sequence_name", value = "USERS_SEQ"),
+    @Parameter(name = "force_table_use", value = "true"),
+    @Parameter(name = "increment_size", value = "50"),
+    @Parameter(name = "optimizer", value = "pooled-lo")
+  })
   private Long id;
 
   @NonNull
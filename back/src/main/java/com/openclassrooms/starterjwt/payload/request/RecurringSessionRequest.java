@@ -0,0 +1,25 @@
+package com.openclassrooms.starterjwt.payload.request;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import lombok.Data;
+
+import javax.validation.Valid;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+
+/**
+ * A session repeated every week from the date of the template, either a number of times
+ * or up to a date included. Exactly one of occurrences and until must be given.
+ */
+@Data
+public class RecurringSessionRequest {
+  @NotNull
+  @Valid
+  private SessionDto session;
+
+  @Min(1)
+  private Integer occurrences;
+
+  private Date until;
+}
@@ -0,0 +1,17 @@
+package com.openclassrooms.starterjwt.payload.response;
+
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.util.List;
+
+@Getter
+@Setter
+@AllArgsConstructor
+public class SessionPageResponse {
+  private List<SessionDto> items;
+
+  private String next;
+}
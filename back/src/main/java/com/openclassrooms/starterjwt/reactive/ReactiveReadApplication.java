@@ -0,0 +1,149 @@
+package com.openclassrooms.starterjwt.reactive;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtParseResult;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.actuate.autoconfigure.security.reactive.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.ReactiveAuthenticationManager;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.config.annotation.web.reactive.EnableWebFluxSecurity;
+import org.springframework.security.config.web.server.SecurityWebFiltersOrder;
+import org.springframework.security.config.web.server.ServerHttpSecurity;
+import org.springframework.security.web.server.SecurityWebFilterChain;
+import org.springframework.security.web.server.ServerAuthenticationEntryPoint;
+import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
+import org.springframework.security.web.server.authentication.HttpStatusServerEntryPoint;
+import org.springframework.security.web.server.authentication.ServerAuthenticationEntryPointFailureHandler;
+import org.springframework.security.web.server.context.NoOpServerSecurityContextRepository;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsConfigurationSource;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import static org.springframework.web.reactive.function.server.RouterFunctions.route;
+
+/**
+ * Read-only API for sessions and teachers on WebFlux and R2DBC, started as its own process
+ * next to the servlet application and sharing its schema, DTOs and JWT secret.
+ * <p>
+ * The condition keeps this configuration out of the servlet application, whose component
+ * scan also finds it.
+ */
+@Configuration(proxyBeanMethods = false)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+@EnableAutoConfiguration
+@EnableWebFluxSecurity
+@Import(JwtUtils.class)
+public class ReactiveReadApplication {
+    // application.properties for the shared settings, reactive.properties for the ports and the R2DBC pool
+    public static final String CONFIG_NAME = "application,reactive";
+
+    private static final String BEARER = "Bearer ";
+
+    public static void main(String[] args) {
+        new SpringApplicationBuilder(ReactiveReadApplication.class)
+                .web(WebApplicationType.REACTIVE)
+                .properties("spring.config.name=" + CONFIG_NAME)
+                .run(args);
+    }
+
+    // Tomcat is on the classpath for the servlet application and would otherwise be preferred to Netty
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+
+    @Bean
+    public SessionReadHandler sessionReadHandler(DatabaseClient databaseClient) {
+        return new SessionReadHandler(databaseClient);
+    }
+
+    @Bean
+    public TeacherReadHandler teacherReadHandler(DatabaseClient databaseClient) {
+        return new TeacherReadHandler(databaseClient);
+    }
+
+    // The keyset pages (?size=) and the export stay on the servlet application
+    @Bean
+    public RouterFunction<ServerResponse> readRoutes(SessionReadHandler sessions, TeacherReadHandler teachers) {
+        return route()
+                .GET("/api/session/{id}", sessions::findById)
+                .GET("/api/session", request -> !request.queryParam("size").isPresent(), sessions::findAll)
+                .GET("/api/teacher/{id}", teachers::findById)
+                .GET("/api/teacher", teachers::findAll)
+                .build();
+    }
+
+    // Stateless like AuthTokenFilter with oc.app.jwtStrictUserLookup=false: the principal comes from the claims
+    @Bean
+    public ReactiveAuthenticationManager jwtAuthenticationManager(JwtUtils jwtUtils) {
+        return authentication -> {
+            JwtParseResult result = jwtUtils.parse((String) authentication.getCredentials());
+            if (!result.isValid()) {
+                return Mono.error(new BadCredentialsException("Invalid JWT token: " + result.getFailure()));
+            }
+
+            UserDetailsImpl user = jwtUtils.getUserDetailsFromClaims(result.getClaims());
+            if (user == null) {
+                return Mono.error(new BadCredentialsException("JWT token without identity claims"));
+            }
+
+            return Mono.just(new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities()));
+        };
+    }
+
+    @Bean
+    public CorsConfigurationSource corsConfigurationSource() {
+        CorsConfiguration cors = new CorsConfiguration();
+        cors.addAllowedOrigin("*");
+        cors.addAllowedHeader("*");
+        cors.addAllowedMethod(HttpMethod.GET);
+        cors.setMaxAge(3600L);
+
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/api/**", cors);
+        return source;
+    }
+
+    @Bean
+    public SecurityWebFilterChain readSecurityFilterChain(ServerHttpSecurity http, ReactiveAuthenticationManager jwtAuthenticationManager) {
+        ServerAuthenticationEntryPoint unauthorized = new HttpStatusServerEntryPoint(HttpStatus.UNAUTHORIZED);
+
+        AuthenticationWebFilter jwtFilter = new AuthenticationWebFilter(jwtAuthenticationManager);
+        jwtFilter.setServerAuthenticationConverter(exchange -> Mono
+                .justOrEmpty(exchange.getRequest().getHeaders().getFirst(HttpHeaders.AUTHORIZATION))
+                .filter(header -> header.startsWith(BEARER))
+                .map(header -> new UsernamePasswordAuthenticationToken(null, header.substring(BEARER.length()))));
+        jwtFilter.setAuthenticationFailureHandler(new ServerAuthenticationEntryPointFailureHandler(unauthorized));
+
+        return http.cors().and().csrf().disable()
+                .httpBasic().disable()
+                .formLogin().disable()
+                .logout().disable()
+                .securityContextRepository(NoOpServerSecurityContextRepository.getInstance())
+                .exceptionHandling().authenticationEntryPoint(unauthorized).and()
+                .authorizeExchange()
+                // Only reachable on the management port
+                .matchers(EndpointRequest.to(HealthEndpoint.class, PrometheusScrapeEndpoint.class)).permitAll()
+                .anyExchange().authenticated().and()
+                .addFilterAt(jwtFilter, SecurityWebFiltersOrder.AUTHENTICATION)
+                .build();
+    }
+}
@@ -0,0 +1,108 @@
+package com.openclassrooms.starterjwt.reactive;
+
+import com.openclassrooms.starterjwt.controllers.ETags;
+import com.openclassrooms.starterjwt.dto.SessionDto;
+import io.r2dbc.spi.Row;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Non-blocking counterpart of the read endpoints of SessionController, answering with
+ * the same documents and ETags straight from the SESSIONS and PARTICIPATE tables.
+ */
+public class SessionReadHandler {
+    private static final String SELECT_SESSIONS = "SELECT id, name, date, description, teacher_id, capacity, created_at, updated_at FROM SESSIONS";
+
+    private static final String SELECT_PARTICIPANTS = "SELECT session_id, user_id FROM PARTICIPATE";
+
+    private final DatabaseClient databaseClient;
+
+
+    public SessionReadHandler(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<ServerResponse> findById(ServerRequest request) {
+        String id = request.pathVariable("id");
+        Long sessionId;
+        try {
+            sessionId = Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().build();
+        }
+
+        // As in SessionController, the ETag is read before the body
+        return this.databaseClient.sql("SELECT updated_at FROM SESSIONS WHERE id = :id")
+                .bind("id", sessionId)
+                .map(row -> ETags.of("session-" + id, 1, row.get("updated_at", LocalDateTime.class)))
+                .one()
+                .flatMap(eTag -> request.checkNotModified(eTag)
+                        .switchIfEmpty(Mono.defer(() -> findSession(sessionId)
+                                .flatMap(session -> ServerResponse.ok().eTag(eTag).bodyValue(session)))))
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+    }
+
+    public Mono<ServerResponse> findAll(ServerRequest request) {
+        return this.databaseClient.sql("SELECT COUNT(*) AS count, MAX(updated_at) AS updated_at FROM SESSIONS")
+                .map(row -> ETags.of("sessions", row.get("count", Long.class), row.get("updated_at", LocalDateTime.class)))
+                .one()
+                .flatMap(eTag -> request.checkNotModified(eTag)
+                        .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().eTag(eTag).body(findSessions(), SessionDto.class))));
+    }
+
+    private Mono<SessionDto> findSession(Long id) {
+        Mono<SessionDto> session = this.databaseClient.sql(SELECT_SESSIONS + " WHERE id = :id")
+                .bind("id", id)
+                .map(SessionReadHandler::toDto)
+                .one();
+        Mono<List<Long>> participants = this.databaseClient.sql(SELECT_PARTICIPANTS + " WHERE session_id = :id")
+                .bind("id", id)
+                .map(row -> row.get("user_id", Long.class))
+                .all()
+                .collectList();
+
+        return Mono.zip(session, participants, (dto, userIds) -> {
+            dto.setUsers(userIds);
+            return dto;
+        });
+    }
+
+    // The participants are read once and grouped, rather than queried for each session
+    private Flux<SessionDto> findSessions() {
+        return this.databaseClient.sql(SELECT_PARTICIPANTS)
+                .map(row -> new Long[]{row.get("session_id", Long.class), row.get("user_id", Long.class)})
+                .all()
+                .collectMultimap(participant -> participant[0], participant -> participant[1])
+                .flatMapMany(participants -> this.databaseClient.sql(SELECT_SESSIONS + " ORDER BY id ASC")
+                        .map(SessionReadHandler::toDto)
+                        .all()
+                        .map(dto -> {
+                            dto.setUsers(new ArrayList<>(participants.getOrDefault(dto.getId(), Collections.emptyList())));
+                            return dto;
+                        }));
+    }
+
+    private static SessionDto toDto(Row row) {
+        LocalDateTime date = row.get("date", LocalDateTime.class);
+
+        return new SessionDto(
+                row.get("id", Long.class),
+                row.get("name", String.class),
+                date != null ? Timestamp.valueOf(date) : null,
+                row.get("teacher_id", Long.class),
+                row.get("description", String.class),
+                null,
+                row.get("capacity", Integer.class),
+                row.get("created_at", LocalDateTime.class),
+                row.get("updated_at", LocalDateTime.class));
+    }
+}
@@ -0,0 +1,76 @@
+package com.openclassrooms.starterjwt.reactive;
+
+import com.openclassrooms.starterjwt.controllers.ETags;
+import com.openclassrooms.starterjwt.dto.TeacherDto;
+import io.r2dbc.spi.Row;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import reactor.core.publisher.Mono;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.Objects;
+
+/**
+ * Non-blocking counterpart of TeacherController. It reads the TEACHERS table directly,
+ * the catalog cached by the servlet application is not shared with this process.
+ */
+public class TeacherReadHandler {
+    private static final String SELECT_TEACHERS = "SELECT id, last_name, first_name, created_at, updated_at FROM TEACHERS";
+
+    private final DatabaseClient databaseClient;
+
+
+    public TeacherReadHandler(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+    }
+
+    public Mono<ServerResponse> findById(ServerRequest request) {
+        String id = request.pathVariable("id");
+        Long teacherId;
+        try {
+            teacherId = Long.valueOf(id);
+        } catch (NumberFormatException e) {
+            return ServerResponse.badRequest().build();
+        }
+
+        return this.databaseClient.sql(SELECT_TEACHERS + " WHERE id = :id")
+                .bind("id", teacherId)
+                .map(TeacherReadHandler::toDto)
+                .one()
+                .flatMap(teacher -> {
+                    String eTag = ETags.of("teacher-" + id, 1, teacher.getUpdatedAt());
+                    return request.checkNotModified(eTag)
+                            .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().eTag(eTag).bodyValue(teacher)));
+                })
+                .switchIfEmpty(Mono.defer(() -> ServerResponse.notFound().build()));
+    }
+
+    public Mono<ServerResponse> findAll(ServerRequest request) {
+        return this.databaseClient.sql(SELECT_TEACHERS + " ORDER BY id ASC")
+                .map(TeacherReadHandler::toDto)
+                .all()
+                .collectList()
+                .flatMap(teachers -> {
+                    LocalDateTime updatedAt = teachers.stream()
+                            .map(TeacherDto::getUpdatedAt)
+                            .filter(Objects::nonNull)
+                            .max(Comparator.naturalOrder())
+                            .orElse(null);
+
+                    String eTag = ETags.of("teachers", teachers.size(), updatedAt);
+                    return request.checkNotModified(eTag)
+                            .switchIfEmpty(Mono.defer(() -> ServerResponse.ok().eTag(eTag).bodyValue(teachers)));
+                });
+    }
+
+    private static TeacherDto toDto(Row row) {
+        return new TeacherDto(
+                row.get("id", Long.class),
+                row.get("last_name", String.class),
+                row.get("first_name", String.class),
+                row.get("created_at", LocalDateTime.class),
+                row.get("updated_at", LocalDateTime.class));
+    }
+}
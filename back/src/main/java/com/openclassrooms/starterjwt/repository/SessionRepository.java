@@ -1,9 +1,89 @@
 package com.openclassrooms.starterjwt.repository;
 
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.repository.projection.SessionParticipant;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.repository.projection.SessionVersion;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_CACHE_MODE;
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
+
 @Repository
-public interface SessionRepository  extends JpaRepository<Session, Long> {
+public interface SessionRepository  extends JpaRepository<Session, Long>, SessionSeatRepository {
+    String EXPORT_FETCH_SIZE = "100";
+
+    // Columns of SessionSummary, which leaves the teacher and the participants out
+    String SUMMARY = "SELECT s.id AS id, s.name AS name, s.date AS date, s.description AS description, s.teacher.id AS teacherId, "
+            + "s.capacity AS capacity, s.createdAt AS createdAt, s.updatedAt AS updatedAt FROM Session s ";
+
+    @Query(SUMMARY + "ORDER BY s.date ASC, s.id ASC")
+    List<SessionSummary> findFirstPage(Pageable pageable);
+
+    @Query(SUMMARY + "WHERE s.date > :date OR (s.date = :date AND s.id > :id) ORDER BY s.date ASC, s.id ASC")
+    List<SessionSummary> findPageAfter(@Param("date") Date date, @Param("id") Long id, Pageable pageable);
+
+    // Same columns read from the tables, so the user filter stays on PARTICIPATE without joining USERS
+    String NATIVE_SUMMARY = "SELECT s.id AS id, s.name AS name, s.date AS date, s.description AS description, "
+            + "s.teacher_id AS teacherId, s.capacity AS capacity, s.created_at AS createdAt, s.updated_at AS updatedAt "
+            + "FROM SESSIONS s JOIN PARTICIPATE p ON p.session_id = s.id ";
+
+    @Query(value = NATIVE_SUMMARY + "WHERE p.user_id = :userId AND s.date >= :from ORDER BY s.date ASC, s.id ASC",
+            nativeQuery = true)
+    List<SessionSummary> findUpcomingByUser(@Param("userId") Long userId, @Param("from") Date from, Pageable pageable);
+
+    @Query(value = NATIVE_SUMMARY + "WHERE p.user_id = :userId AND s.date >= :from "
+            + "AND (s.date > :date OR (s.date = :date AND s.id > :id)) ORDER BY s.date ASC, s.id ASC", nativeQuery = true)
+    List<SessionSummary> findUpcomingByUserAfter(@Param("userId") Long userId, @Param("from") Date from,
+                                                 @Param("date") Date date, @Param("id") Long id, Pageable pageable);
+
+    // Null bounds leave that side of the range open. The rows are not put in the second-level
+    // cache, where one export would push out the sessions the other endpoints read.
+    @QueryHints({
+            @QueryHint(name = HINT_FETCH_SIZE, value = EXPORT_FETCH_SIZE),
+            @QueryHint(name = HINT_CACHE_MODE, value = "IGNORE")
+    })
+    @Query(SUMMARY + "WHERE (:from IS NULL OR s.date >= :from) AND (:to IS NULL OR s.date < :to) "
+            + "ORDER BY s.date ASC, s.id ASC")
+    Stream<SessionSummary> streamByDate(@Param("from") Date from, @Param("to") Date to);
+
+    @Query(SUMMARY + "ORDER BY s.id ASC")
+    List<SessionSummary> findAllSummaries();
+
+    @Query(SUMMARY + "WHERE s.id = :id")
+    Optional<SessionSummary> findSummaryById(@Param("id") Long id);
+
+    @Query("SELECT COUNT(s) AS count, MAX(s.updatedAt) AS updatedAt FROM Session s")
+    SessionVersion findVersion();
+
+    @Query("SELECT COUNT(s) AS count, MAX(s.updatedAt) AS updatedAt FROM Session s WHERE s.id = :id")
+    SessionVersion findVersionById(@Param("id") Long id);
+
+    @Query(value = "SELECT session_id AS sessionId, user_id AS userId FROM PARTICIPATE", nativeQuery = true)
+    List<SessionParticipant> findAllParticipants();
+
+    @Query(value = "SELECT session_id AS sessionId, user_id AS userId FROM PARTICIPATE WHERE session_id = :id", nativeQuery = true)
+    List<SessionParticipant> findParticipantsBySessionId(@Param("id") Long id);
+
+    @Query(value = "SELECT session_id AS sessionId, user_id AS userId FROM PARTICIPATE WHERE session_id IN (:ids)", nativeQuery = true)
+    List<SessionParticipant> findParticipantsBySessionIds(@Param("ids") Collection<Long> ids);
+
+    @Query(value = "SELECT seats_taken FROM SESSIONS WHERE id = :id FOR UPDATE", nativeQuery = true)
+    Optional<Integer> lockSeats(@Param("id") Long id);
+
+    @Query(value = "SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = :id AND user_id = :userId", nativeQuery = true)
+    long countParticipant(@Param("id") Long id, @Param("userId") Long userId);
 }
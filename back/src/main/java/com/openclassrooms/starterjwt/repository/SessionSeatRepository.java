@@ -0,0 +1,27 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.util.Collection;
+
+/**
+ * Participant and seat counter writes of SessionRepository. They are plain SQL updates that
+ * only evict the second-level cache entries of the sessions they change, where a native
+ * JPA update would evict whole cache regions.
+ */
+public interface SessionSeatRepository {
+    // Inserts nothing when the session, the user or the participation itself is missing;
+    // concurrent duplicates are rejected by the unique constraint on PARTICIPATE.
+    int addParticipant(Long id, Long userId);
+
+    int removeParticipant(Long id, Long userId);
+
+    int takeSeat(Long id);
+
+    int releaseSeat(Long id);
+
+    int recountSeats(Long id);
+
+    int recountAllSeats(Collection<Long> ids);
+
+    // Participant changes that keep the seat count bump updated_at here so that ETags change
+    int touch(Long id);
+}
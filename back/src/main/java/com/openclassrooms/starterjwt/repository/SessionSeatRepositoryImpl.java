@@ -0,0 +1,110 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.function.Consumer;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+
+import org.hibernate.Cache;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.openclassrooms.starterjwt.models.Session;
+
+// The statements run on the connection of the current JPA transaction, after the pending entity changes are flushed
+@Transactional
+public class SessionSeatRepositoryImpl implements SessionSeatRepository {
+    private static final String USERS = Session.class.getName() + ".users";
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public SessionSeatRepositoryImpl(NamedParameterJdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int addParticipant(Long id, Long userId) {
+        int inserted = update("INSERT INTO PARTICIPATE (session_id, user_id) SELECT s.id, u.id FROM SESSIONS s, USERS u "
+                + "WHERE s.id = :id AND u.id = :userId "
+                + "AND NOT EXISTS (SELECT 1 FROM PARTICIPATE p WHERE p.session_id = :id AND p.user_id = :userId)",
+                Map.of("id", id, "userId", userId));
+        participantsChanged(id);
+        return inserted;
+    }
+
+    @Override
+    public int removeParticipant(Long id, Long userId) {
+        int deleted = update("DELETE FROM PARTICIPATE WHERE session_id = :id AND user_id = :userId",
+                Map.of("id", id, "userId", userId));
+        participantsChanged(id);
+        return deleted;
+    }
+
+    @Override
+    public int takeSeat(Long id) {
+        return sessionChanged(id, update("UPDATE SESSIONS SET seats_taken = seats_taken + 1, updated_at = CURRENT_TIMESTAMP(6) "
+                + "WHERE id = :id AND (capacity IS NULL OR seats_taken < capacity)", Map.of("id", id)));
+    }
+
+    @Override
+    public int releaseSeat(Long id) {
+        return sessionChanged(id, update("UPDATE SESSIONS SET seats_taken = seats_taken - 1, updated_at = CURRENT_TIMESTAMP(6) "
+                + "WHERE id = :id AND seats_taken > 0", Map.of("id", id)));
+    }
+
+    @Override
+    public int recountSeats(Long id) {
+        return sessionChanged(id, update("UPDATE SESSIONS SET seats_taken = (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = :id) "
+                + "WHERE id = :id", Map.of("id", id)));
+    }
+
+    @Override
+    public int recountAllSeats(Collection<Long> ids) {
+        int updated = update("UPDATE SESSIONS s SET seats_taken = (SELECT COUNT(*) FROM PARTICIPATE p WHERE p.session_id = s.id) "
+                + "WHERE s.id IN (:ids)", Map.of("ids", ids));
+        evict(cache -> ids.forEach(id -> cache.evictEntityData(Session.class, id)));
+        return updated;
+    }
+
+    @Override
+    public int touch(Long id) {
+        return sessionChanged(id, update("UPDATE SESSIONS SET updated_at = CURRENT_TIMESTAMP(6) WHERE id = :id", Map.of("id", id)));
+    }
+
+    private int update(String sql, Map<String, ?> params) {
+        this.entityManager.flush();
+        return this.jdbcTemplate.update(sql, params);
+    }
+
+    // The loaded sessions keep their former participants otherwise
+    private void participantsChanged(Long id) {
+        this.entityManager.clear();
+        evict(cache -> cache.evictCollectionData(USERS, id));
+    }
+
+    private int sessionChanged(Long id, int updated) {
+        evict(cache -> cache.evictEntityData(Session.class, id));
+        return updated;
+    }
+
+    // Evicted again once the transaction is over, as a concurrent reader may cache the former row before the commit
+    private void evict(Consumer<Cache> eviction) {
+        Cache cache = this.entityManager.getEntityManagerFactory().getCache().unwrap(Cache.class);
+        eviction.accept(cache);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    eviction.accept(cache);
+                }
+            });
+        }
+    }
+}
@@ -2,13 +2,19 @@ package com.openclassrooms.starterjwt.repository;
 
 import java.util.Optional;
 
+import javax.persistence.QueryHint;
+
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
 import com.openclassrooms.starterjwt.models.User;
 
+import static org.hibernate.jpa.QueryHints.HINT_CACHEABLE;
+
 @Repository
 public interface UserRepository extends JpaRepository<User, Long> {
+  @QueryHints(@QueryHint(name = HINT_CACHEABLE, value = "true"))
   Optional<User> findByEmail(String email);
 
   Boolean existsByEmail(String email); 
@@ -0,0 +1,19 @@
+package com.openclassrooms.starterjwt.repository;
+
+import java.util.Optional;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
+
+@Repository
+public interface WaitlistRepository extends JpaRepository<WaitlistEntry, Long> {
+  boolean existsBySessionIdAndUserId(Long sessionId, Long userId);
+
+  Optional<WaitlistEntry> findFirstBySessionIdOrderByIdAsc(Long sessionId);
+
+  long deleteBySessionIdAndUserId(Long sessionId, Long userId);
+
+  long countBySessionId(Long sessionId);
+}
@@ -0,0 +1,9 @@
+package com.openclassrooms.starterjwt.repository.projection;
+
+import java.time.LocalDateTime;
+
+public interface SessionVersion {
+    Long getCount();
+
+    LocalDateTime getUpdatedAt();
+}
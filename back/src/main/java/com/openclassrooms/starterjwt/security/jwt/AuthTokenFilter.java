@@ -1,6 +1,7 @@
 package com.openclassrooms.starterjwt.security.jwt;
 
 import java.io.IOException;
+import java.util.Locale;
 
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
@@ -10,6 +11,7 @@ import javax.servlet.http.HttpServletResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,15 +19,30 @@ import org.springframework.security.web.authentication.WebAuthenticationDetailsS
 import org.springframework.util.StringUtils;
 import org.springframework.web.filter.OncePerRequestFilter;
 
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
 
+import io.jsonwebtoken.Claims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
 public class AuthTokenFilter extends OncePerRequestFilter {
   @Autowired
   private JwtUtils jwtUtils;
 
+  @Autowired
+  private JwtTokenCache tokenCache;
+
   @Autowired
   private UserDetailsServiceImpl userDetailsService;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
+  // When enabled, every request reloads the user so that deleted accounts are rejected before their token expires
+  @Value("${oc.app.jwtStrictUserLookup:false}")
+  private boolean strictUserLookup;
+
   private static final Logger logger = LoggerFactory.getLogger(AuthTokenFilter.class);
 
   @Override
@@ -33,10 +50,8 @@ public class AuthTokenFilter extends OncePerRequestFilter {
       throws ServletException, IOException {
     try {
       String jwt = parseJwt(request);
-      if (jwt != null && jwtUtils.validateJwtToken(jwt)) {
-        String username = jwtUtils.getUserNameFromJwtToken(jwt);
-
-        UserDetails userDetails = userDetailsService.loadUserByUsername(username);
+      UserDetails userDetails = jwt != null ? resolveUserDetails(jwt) : null;
+      if (userDetails != null) {
         UsernamePasswordAuthenticationToken authentication =
             new UsernamePasswordAuthenticationToken(
                 userDetails,
@@ -53,6 +68,46 @@ public class AuthTokenFilter extends OncePerRequestFilter {
     filterChain.doFilter(request, response);
   }
 
+  private UserDetails resolveUserDetails(String jwt) {
+    Timer.Sample sample = Timer.start(meterRegistry);
+    if (!strictUserLookup) {
+      UserDetailsImpl cached = tokenCache.get(jwt);
+      if (cached != null) {
+        return resolved(sample, "cached", cached);
+      }
+    }
+
+    Timer.Sample parseSample = Timer.start(meterRegistry);
+    JwtParseResult result = jwtUtils.parse(jwt);
+    parseSample.stop(meterRegistry.timer("auth.token.parse"));
+    if (!result.isValid()) {
+      meterRegistry.counter("auth.failures", "cause", result.getFailure().name().toLowerCase(Locale.ROOT)).increment();
+      return resolved(sample, "rejected", null);
+    }
+
+    Claims claims = result.getClaims();
+    UserDetailsImpl userDetails = strictUserLookup ? null : jwtUtils.getUserDetailsFromClaims(claims);
+    if (userDetails != null) {
+      tokenCache.put(jwt, userDetails, claims.getExpiration());
+      return resolved(sample, "parsed", userDetails);
+    }
+
+    // Strict mode, or a token issued before the identity claims were added
+    Timer.Sample lookupSample = Timer.start(meterRegistry);
+    UserDetails loaded;
+    try {
+      loaded = userDetailsService.loadUserByUsername(claims.getSubject());
+    } finally {
+      lookupSample.stop(meterRegistry.timer("auth.user.lookup"));
+    }
+    return resolved(sample, "lookup", loaded);
+  }
+
+  private UserDetails resolved(Timer.Sample sample, String source, UserDetails userDetails) {
+    sample.stop(meterRegistry.timer("auth.token.resolve", "source", source));
+    return userDetails;
+  }
+
   private String parseJwt(HttpServletRequest request) {
     String headerAuth = request.getHeader("Authorization");
 
@@ -0,0 +1,42 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import io.jsonwebtoken.Claims;
+
+public final class JwtParseResult {
+  public enum Failure {
+    INVALID_SIGNATURE,
+    MALFORMED,
+    EXPIRED,
+    UNSUPPORTED,
+    EMPTY
+  }
+
+  private final Claims claims;
+
+  private final Failure failure;
+
+  private JwtParseResult(Claims claims, Failure failure) {
+    this.claims = claims;
+    this.failure = failure;
+  }
+
+  public static JwtParseResult success(Claims claims) {
+    return new JwtParseResult(claims, null);
+  }
+
+  public static JwtParseResult failure(Failure failure) {
+    return new JwtParseResult(null, failure);
+  }
+
+  public boolean isValid() {
+    return claims != null;
+  }
+
+  public Claims getClaims() {
+    return claims;
+  }
+
+  public Failure getFailure() {
+    return failure;
+  }
+}
@@ -0,0 +1,104 @@
+package com.openclassrooms.starterjwt.security.jwt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Base64;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+/**
+ * Principals of already verified tokens, keyed by the SHA-256 of the token.
+ * Each entry expires with its token, and entries are evicted by Caffeine past the size cap.
+ */
+@Component
+public class JwtTokenCache {
+  private final Cache<String, Entry> cache;
+
+  private final LongAdder hits = new LongAdder();
+
+  private final LongAdder misses = new LongAdder();
+
+  public JwtTokenCache(@Value("${oc.app.jwtCacheMaxSize:10000}") long maxSize) {
+    this.cache = Caffeine.newBuilder()
+        .maximumSize(maxSize)
+        .expireAfter(new Expiry<String, Entry>() {
+          @Override
+          public long expireAfterCreate(String key, Entry entry, long currentTime) {
+            return TimeUnit.MILLISECONDS.toNanos(Math.max(0, entry.expiresAt - System.currentTimeMillis()));
+          }
+
+          @Override
+          public long expireAfterUpdate(String key, Entry entry, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, entry, currentTime);
+          }
+
+          @Override
+          public long expireAfterRead(String key, Entry entry, long currentTime, long currentDuration) {
+            return currentDuration;
+          }
+        })
+        .build();
+  }
+
+  public UserDetailsImpl get(String token) {
+    Entry entry = this.cache.getIfPresent(hash(token));
+    // Caffeine expiry is checked against its own ticker, so the token's exp is checked again here
+    if (entry == null || entry.expiresAt <= System.currentTimeMillis()) {
+      this.misses.increment();
+      return null;
+    }
+
+    this.hits.increment();
+    return entry.principal;
+  }
+
+  public void put(String token, UserDetailsImpl principal, Date expiration) {
+    if (expiration == null || expiration.getTime() <= System.currentTimeMillis()) {
+      return;
+    }
+    this.cache.put(hash(token), new Entry(principal, expiration.getTime()));
+  }
+
+  public long getHitCount() {
+    return this.hits.sum();
+  }
+
+  public long getMissCount() {
+    return this.misses.sum();
+  }
+
+  public long size() {
+    this.cache.cleanUp();
+    return this.cache.estimatedSize();
+  }
+
+  private static String hash(String token) {
+    try {
+      byte[] digest = MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8));
+      return Base64.getEncoder().encodeToString(digest);
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static final class Entry {
+    private final UserDetailsImpl principal;
+
+    private final long expiresAt;
+
+    private Entry(UserDetailsImpl principal, long expiresAt) {
+      this.principal = principal;
+      this.expiresAt = expiresAt;
+    }
+  }
+}
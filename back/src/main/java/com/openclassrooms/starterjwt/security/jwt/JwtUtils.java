@@ -2,6 +2,9 @@ package com.openclassrooms.starterjwt.security.jwt;
 
 import java.util.Date;
 
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -11,49 +14,97 @@ import org.springframework.stereotype.Component;
 import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
 
 import io.jsonwebtoken.*;
+import io.jsonwebtoken.impl.TextCodec;
 
 @Component
 public class JwtUtils {
   private static final Logger logger = LoggerFactory.getLogger(JwtUtils.class);
 
-  @Value("${oc.app.jwtSecret}")
-  private String jwtSecret;
+  private static final SignatureAlgorithm SIGNATURE_ALGORITHM = SignatureAlgorithm.HS512;
+
+  private static final String CLAIM_ID = "id";
+  private static final String CLAIM_FIRST_NAME = "firstName";
+  private static final String CLAIM_LAST_NAME = "lastName";
+  private static final String CLAIM_ADMIN = "admin";
+
+  private final int jwtExpirationMs;
+
+  private final SecretKey signingKey;
 
-  @Value("${oc.app.jwtExpirationMs}")
-  private int jwtExpirationMs;
+  // Configured once here and never mutated afterwards, so it is shared by all request threads
+  private final JwtParser parser;
+
+  public JwtUtils(@Value("${oc.app.jwtSecret}") String jwtSecret,
+      @Value("${oc.app.jwtExpirationMs}") int jwtExpirationMs) {
+    this.jwtExpirationMs = jwtExpirationMs;
+    // jjwt treats a String secret as Base64, decode it the same way to stay compatible with issued tokens
+    this.signingKey = new SecretKeySpec(TextCodec.BASE64.decode(jwtSecret), SIGNATURE_ALGORITHM.getJcaName());
+    this.parser = Jwts.parser().setSigningKey(this.signingKey);
+  }
 
   public String generateJwtToken(Authentication authentication) {
 
     UserDetailsImpl userPrincipal = (UserDetailsImpl) authentication.getPrincipal();
+    long now = System.currentTimeMillis();
 
     return Jwts.builder()
         .setSubject((userPrincipal.getUsername()))
-        .setIssuedAt(new Date())
-        .setExpiration(new Date((new Date()).getTime() + jwtExpirationMs))
-        .signWith(SignatureAlgorithm.HS512, jwtSecret)
+        .claim(CLAIM_ID, userPrincipal.getId())
+        .claim(CLAIM_FIRST_NAME, userPrincipal.getFirstName())
+        .claim(CLAIM_LAST_NAME, userPrincipal.getLastName())
+        .claim(CLAIM_ADMIN, userPrincipal.getAdmin())
+        .setIssuedAt(new Date(now))
+        .setExpiration(new Date(now + jwtExpirationMs))
+        .signWith(SIGNATURE_ALGORITHM, signingKey)
         .compact();
   }
 
   public String getUserNameFromJwtToken(String token) {
-    return Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(token).getBody().getSubject();
+    return parser.parseClaimsJws(token).getBody().getSubject();
   }
 
   public boolean validateJwtToken(String authToken) {
+    return parse(authToken).isValid();
+  }
+
+  public Claims getClaimsFromJwtToken(String authToken) {
+    return parse(authToken).getClaims();
+  }
+
+  // Returns null for tokens issued before the identity claims existed
+  public UserDetailsImpl getUserDetailsFromClaims(Claims claims) {
+    if (!(claims.get(CLAIM_ID) instanceof Number)) {
+      return null;
+    }
+
+    return UserDetailsImpl
+        .builder()
+        .id(((Number) claims.get(CLAIM_ID)).longValue())
+        .username(claims.getSubject())
+        .firstName(claims.get(CLAIM_FIRST_NAME, String.class))
+        .lastName(claims.get(CLAIM_LAST_NAME, String.class))
+        .admin(Boolean.TRUE.equals(claims.get(CLAIM_ADMIN, Boolean.class)))
+        .build();
+  }
+
+  public JwtParseResult parse(String authToken) {
     try {
-      Jwts.parser().setSigningKey(jwtSecret).parseClaimsJws(authToken);
-      return true;
+      return JwtParseResult.success(parser.parseClaimsJws(authToken).getBody());
     } catch (SignatureException e) {
       logger.error("Invalid JWT signature: {}", e.getMessage());
+      return JwtParseResult.failure(JwtParseResult.Failure.INVALID_SIGNATURE);
     } catch (MalformedJwtException e) {
       logger.error("Invalid JWT token: {}", e.getMessage());
+      return JwtParseResult.failure(JwtParseResult.Failure.MALFORMED);
     } catch (ExpiredJwtException e) {
       logger.error("JWT token is expired: {}", e.getMessage());
+      return JwtParseResult.failure(JwtParseResult.Failure.EXPIRED);
     } catch (UnsupportedJwtException e) {
       logger.error("JWT token is unsupported: {}", e.getMessage());
+      return JwtParseResult.failure(JwtParseResult.Failure.UNSUPPORTED);
     } catch (IllegalArgumentException e) {
       logger.error("JWT claims string is empty: {}", e.getMessage());
+      return JwtParseResult.failure(JwtParseResult.Failure.EMPTY);
     }
-
-    return false;
   }
 }
@@ -0,0 +1,77 @@
+package com.openclassrooms.starterjwt.security.services;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import javax.annotation.PreDestroy;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Runs BCrypt hashing and verification off the servlet threads, on a fixed pool with a bounded queue.
+ * Work that cannot be queued is rejected immediately so that a login storm cannot starve the other endpoints.
+ */
+@Component
+public class PasswordHashingExecutor {
+  private final ThreadPoolExecutor executor;
+
+  private final LongAdder rejected = new LongAdder();
+
+  private final int retryAfterSeconds;
+
+  public PasswordHashingExecutor(@Value("${oc.app.passwordExecutor.poolSize:4}") int poolSize,
+      @Value("${oc.app.passwordExecutor.queueCapacity:64}") int queueCapacity,
+      @Value("${oc.app.passwordExecutor.retryAfterSeconds:1}") int retryAfterSeconds) {
+    BlockingQueue<Runnable> queue = queueCapacity > 0 ? new ArrayBlockingQueue<>(queueCapacity) : new SynchronousQueue<>();
+    AtomicInteger threadCount = new AtomicInteger();
+    this.executor = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, queue, runnable -> {
+      Thread thread = new Thread(runnable, "password-hashing-" + threadCount.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }, new ThreadPoolExecutor.AbortPolicy());
+    this.retryAfterSeconds = retryAfterSeconds;
+  }
+
+  public <T> CompletableFuture<T> submit(Supplier<T> task) {
+    try {
+      return CompletableFuture.supplyAsync(task, this.executor);
+    } catch (RejectedExecutionException e) {
+      this.rejected.increment();
+      throw e;
+    }
+  }
+
+  public int getRetryAfterSeconds() {
+    return this.retryAfterSeconds;
+  }
+
+  public int getActiveCount() {
+    return this.executor.getActiveCount();
+  }
+
+  public int getQueueSize() {
+    return this.executor.getQueue().size();
+  }
+
+  public long getCompletedCount() {
+    return this.executor.getCompletedTaskCount();
+  }
+
+  public long getRejectedCount() {
+    return this.rejected.sum();
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    this.executor.shutdown();
+  }
+}
@@ -0,0 +1,27 @@
+package com.openclassrooms.starterjwt.services;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped in-process locks so that enrollments on the same session queue up in the JVM
+ * instead of piling up on the session row lock, while different sessions proceed in parallel.
+ */
+@Component
+public class SeatLocks {
+    private final Lock[] stripes;
+
+    public SeatLocks(@Value("${oc.app.seatLockStripes:64}") int stripes) {
+        this.stripes = new Lock[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new ReentrantLock(true);
+        }
+    }
+
+    public Lock forSession(Long sessionId) {
+        return this.stripes[Math.floorMod(sessionId.hashCode(), this.stripes.length)];
+    }
+}
@@ -0,0 +1,54 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Timestamp;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Opaque keyset position in the (date, id) ordering of sessions.
+ * Nanoseconds are kept so that the equality branch of the keyset predicate still matches sub-millisecond timestamps.
+ */
+@Getter
+public class SessionCursor {
+    private final Timestamp date;
+    private final Long id;
+
+    private SessionCursor(Timestamp date, Long id) {
+        this.date = date;
+        this.id = id;
+    }
+
+    public static SessionCursor of(SessionSummary session) {
+        Date date = session.getDate();
+        Timestamp timestamp = new Timestamp(date.getTime());
+        if (date instanceof Timestamp) {
+            timestamp.setNanos(((Timestamp) date).getNanos());
+        }
+        return new SessionCursor(timestamp, session.getId());
+    }
+
+    public static SessionCursor decode(String cursor) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] parts = raw.split(":");
+            if (parts.length != 3) {
+                throw new BadRequestException();
+            }
+            Timestamp timestamp = new Timestamp(Long.parseLong(parts[0]));
+            timestamp.setNanos(Integer.parseInt(parts[1]));
+            return new SessionCursor(timestamp, Long.valueOf(parts[2]));
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestException();
+        }
+    }
+
+    public String encode() {
+        String raw = this.date.getTime() + ":" + this.date.getNanos() + ":" + this.id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+}
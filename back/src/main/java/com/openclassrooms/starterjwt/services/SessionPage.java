@@ -0,0 +1,19 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Map;
+
+@Getter
+@AllArgsConstructor
+public class SessionPage {
+    private final List<SessionSummary> sessions;
+
+    // Participant ids of the sessions of the page, by session id
+    private final Map<Long, List<Long>> participants;
+
+    private final String next;
+}
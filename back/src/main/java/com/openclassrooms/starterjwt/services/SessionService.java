@@ -3,76 +3,401 @@ package com.openclassrooms.starterjwt.services;
 import com.openclassrooms.starterjwt.exception.BadRequestException;
 import com.openclassrooms.starterjwt.exception.NotFoundException;
 import com.openclassrooms.starterjwt.models.Session;
-import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.models.WaitlistEntry;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.WaitlistRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionParticipant;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.repository.projection.SessionVersion;
+import io.micrometer.core.annotation.Timed;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.Lock;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 @Service
 public class SessionService {
+    private static final String METRIC = "session.service";
+
+    private static final int EXPORT_CHUNK_SIZE = Integer.parseInt(SessionRepository.EXPORT_FETCH_SIZE);
+
     private final SessionRepository sessionRepository;
 
     private final UserRepository userRepository;
 
-    public SessionService(SessionRepository sessionRepository, UserRepository userRepository) {
+    private final WaitlistRepository waitlistRepository;
+
+    private final SeatLocks seatLocks;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final TransactionTemplate readOnlyTransactionTemplate;
+
+    @Value("${oc.app.sessionPageSize:20}")
+    private int defaultPageSize;
+
+    @Value("${oc.app.sessionMaxPageSize:100}")
+    private int maxPageSize;
+
+    @Value("${oc.app.recurringSessionMaxOccurrences:104}")
+    private int maxOccurrences;
+
+    public SessionService(SessionRepository sessionRepository,
+                          UserRepository userRepository,
+                          WaitlistRepository waitlistRepository,
+                          SeatLocks seatLocks,
+                          PlatformTransactionManager transactionManager) {
         this.sessionRepository = sessionRepository;
         this.userRepository = userRepository;
+        this.waitlistRepository = waitlistRepository;
+        this.seatLocks = seatLocks;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.readOnlyTransactionTemplate.setReadOnly(true);
     }
 
+    // The seat counter is written in the same transaction, so a session is never committed without it
+    @Timed(METRIC)
     public Session create(Session session) {
-        return this.sessionRepository.save(session);
+        checkCapacity(session);
+        return this.transactionTemplate.execute(status -> {
+            Session created = this.sessionRepository.save(session);
+            this.sessionRepository.recountSeats(created.getId());
+            return created;
+        });
+    }
+
+    // Participants given with the session must fit in it, the waitlist is only for later enrollments
+    private static void checkCapacity(Session session) {
+        if (session.getCapacity() != null && session.getUsers() != null && session.getUsers().size() > session.getCapacity()) {
+            throw new BadRequestException("More participants than the capacity of " + session.getCapacity());
+        }
+    }
+
+    // The occurrences are persisted together, their inserts and those of their participants
+    // are sent in JDBC batches, and the seats of all of them are counted in one statement.
+    @Timed(METRIC)
+    public List<Long> createWeekly(Session template, Integer occurrences, Date until) {
+        checkCapacity(template);
+        List<Session> sessions = weeklyDates(template.getDate(), occurrences, until).stream()
+                .map(date -> Session.builder()
+                        .name(template.getName())
+                        .description(template.getDescription())
+                        .date(date)
+                        .capacity(template.getCapacity())
+                        .teacher(template.getTeacher())
+                        .users(new ArrayList<>(template.getUsers()))
+                        .build())
+                .collect(Collectors.toList());
+
+        return this.transactionTemplate.execute(status -> {
+            List<Long> ids = this.sessionRepository.saveAll(sessions).stream()
+                    .map(Session::getId)
+                    .collect(Collectors.toList());
+            if (!template.getUsers().isEmpty()) {
+                this.sessionRepository.recountAllSeats(ids);
+            }
+            return ids;
+        });
     }
 
+    // Weeks are added in the zone of the server, so that the sessions keep their local time across daylight saving changes
+    private List<Date> weeklyDates(Date first, Integer occurrences, Date until) {
+        if ((occurrences == null) == (until == null)) {
+            throw new BadRequestException("Either occurrences or until is expected");
+        }
+
+        ZonedDateTime start = first.toInstant().atZone(ZoneId.systemDefault());
+        ZonedDateTime date = start;
+        List<Date> dates = new ArrayList<>();
+        while (occurrences != null ? dates.size() < occurrences : !date.toInstant().isAfter(until.toInstant())) {
+            if (dates.size() == this.maxOccurrences) {
+                throw new BadRequestException("At most " + this.maxOccurrences + " occurrences can be created at once");
+            }
+            dates.add(Date.from(date.toInstant()));
+            date = start.plusWeeks(dates.size());
+        }
+
+        if (dates.isEmpty()) {
+            throw new BadRequestException("The recurrence ends before the first session");
+        }
+        return dates;
+    }
+
+    @Timed(METRIC)
     public void delete(Long id) {
         this.sessionRepository.deleteById(id);
     }
 
+    @Timed(METRIC)
+    @Transactional(readOnly = true)
     public List<Session> findAll() {
         return this.sessionRepository.findAll();
     }
 
+    @Timed(METRIC)
+    @Transactional(readOnly = true)
+    public SessionPage findPage(String cursor, Integer size) {
+        return page(cursor, size,
+                this.sessionRepository::findFirstPage,
+                (after, limit) -> this.sessionRepository.findPageAfter(after.getDate(), after.getId(), limit));
+    }
+
+    @Timed(METRIC)
+    @Transactional(readOnly = true)
+    public SessionPage findUpcomingPage(Long userId, String cursor, Integer size) {
+        Date now = new Date();
+        return page(cursor, size,
+                limit -> this.sessionRepository.findUpcomingByUser(userId, now, limit),
+                (after, limit) -> this.sessionRepository.findUpcomingByUserAfter(userId, now, after.getDate(), after.getId(), limit));
+    }
+
+    private SessionPage page(String cursor, Integer size,
+                             Function<PageRequest, List<SessionSummary>> first,
+                             BiFunction<SessionCursor, PageRequest, List<SessionSummary>> next) {
+        int pageSize = size == null ? this.defaultPageSize : Math.min(Math.max(size, 1), this.maxPageSize);
+        // Fetch one extra row to know whether a next page exists without a count query
+        PageRequest limit = PageRequest.of(0, pageSize + 1);
+
+        List<SessionSummary> sessions;
+        if (cursor == null || cursor.isEmpty()) {
+            sessions = first.apply(limit);
+        } else {
+            sessions = next.apply(SessionCursor.decode(cursor), limit);
+        }
+
+        String nextCursor = null;
+        if (sessions.size() > pageSize) {
+            sessions = sessions.subList(0, pageSize);
+            nextCursor = SessionCursor.of(sessions.get(pageSize - 1)).encode();
+        }
+
+        // The participants of the whole page are read in one statement
+        Map<Long, List<Long>> participants = sessions.isEmpty() ? Collections.emptyMap()
+                : bySession(this.sessionRepository.findParticipantsBySessionIds(
+                        sessions.stream().map(SessionSummary::getId).collect(Collectors.toList())));
+        return new SessionPage(sessions, participants, nextCursor);
+    }
+
+    private static Map<Long, List<Long>> bySession(List<SessionParticipant> participants) {
+        return participants.stream()
+                .collect(Collectors.groupingBy(SessionParticipant::getSessionId,
+                        Collectors.mapping(SessionParticipant::getUserId, Collectors.toList())));
+    }
+
+    // Sessions are read as projections, which stay out of the persistence context and the
+    // second-level cache, and their participants are loaded with one statement per chunk of
+    // rows fetched. The cursor fetch of the MySQL driver lets that statement run while the
+    // sessions are still being streamed on the same connection.
+    @Timed(METRIC)
+    public void forEachSession(Date from, Date to, BiConsumer<SessionSummary, List<Long>> action) {
+        this.readOnlyTransactionTemplate.executeWithoutResult(status -> {
+            List<SessionSummary> chunk = new ArrayList<>(EXPORT_CHUNK_SIZE);
+            try (Stream<SessionSummary> sessions = this.sessionRepository.streamByDate(from, to)) {
+                sessions.forEach(session -> {
+                    chunk.add(session);
+                    if (chunk.size() == EXPORT_CHUNK_SIZE) {
+                        withParticipants(chunk, action);
+                        chunk.clear();
+                    }
+                });
+            }
+            withParticipants(chunk, action);
+        });
+    }
+
+    private void withParticipants(List<SessionSummary> sessions, BiConsumer<SessionSummary, List<Long>> action) {
+        if (sessions.isEmpty()) {
+            return;
+        }
+
+        List<Long> ids = sessions.stream().map(SessionSummary::getId).collect(Collectors.toList());
+        Map<Long, List<Long>> participants = bySession(this.sessionRepository.findParticipantsBySessionIds(ids));
+        sessions.forEach(session -> action.accept(session, participants.getOrDefault(session.getId(), Collections.emptyList())));
+    }
+
+    @Timed(METRIC)
+    @Transactional(readOnly = true)
+    public List<SessionSummary> findAllSummaries() {
+        return this.sessionRepository.findAllSummaries();
+    }
+
+    @Timed(METRIC)
+    @Transactional(readOnly = true)
+    public SessionSummary getSummaryById(Long id) {
+        return this.sessionRepository.findSummaryById(id).orElse(null);
+    }
+
+    @Timed(METRIC)
+    @Transactional(readOnly = true)
+    public SessionVersion getVersion() {
+        return this.sessionRepository.findVersion();
+    }
+
+    @Timed(METRIC)
+    @Transactional(readOnly = true)
+    public SessionVersion getVersion(Long id) {
+        return this.sessionRepository.findVersionById(id);
+    }
+
+    @Timed(METRIC)
+    @Transactional(readOnly = true)
+    public Map<Long, List<Long>> findAllParticipantIds() {
+        return bySession(this.sessionRepository.findAllParticipants());
+    }
+
+    @Timed(METRIC)
+    @Transactional(readOnly = true)
+    public List<Long> findParticipantIds(Long id) {
+        return this.sessionRepository.findParticipantsBySessionId(id).stream()
+                .map(SessionParticipant::getUserId)
+                .collect(Collectors.toList());
+    }
+
+    @Timed(METRIC)
+    @Transactional(readOnly = true)
     public Session getById(Long id) {
         return this.sessionRepository.findById(id).orElse(null);
     }
 
+    // Under the stripe lock like enrollments, so that seats added by a capacity increase
+    // go to the waitlist before a new enrollment can take them.
+    @Timed(METRIC)
     public Session update(Long id, Session session) {
-        session.setId(id);
-        return this.sessionRepository.save(session);
+        checkCapacity(session);
+        Lock lock = this.seatLocks.forSession(id);
+        lock.lock();
+        try {
+            return this.transactionTemplate.execute(status -> {
+                session.setId(id);
+                Session updated = this.sessionRepository.save(session);
+                this.sessionRepository.recountSeats(id);
+                fillFromWaitlist(id);
+                return updated;
+            });
+        } finally {
+            lock.unlock();
+        }
     }
 
-    public void participate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        User user = this.userRepository.findById(userId).orElse(null);
-        if (session == null || user == null) {
-            throw new NotFoundException();
+    // The stripe lock is held across the whole transaction so that the next enrollment
+    // on the same session only starts once the seat counter update is committed.
+    @Timed(METRIC)
+    public ParticipationStatus participate(Long id, Long userId) {
+        Lock lock = this.seatLocks.forSession(id);
+        lock.lock();
+        try {
+            return this.transactionTemplate.execute(status -> enroll(id, userId));
+        } finally {
+            lock.unlock();
         }
+    }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(alreadyParticipate) {
+    @Timed(METRIC)
+    public void noLongerParticipate(Long id, Long userId) {
+        Lock lock = this.seatLocks.forSession(id);
+        lock.lock();
+        try {
+            this.transactionTemplate.executeWithoutResult(status -> withdraw(id, userId));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private ParticipationStatus enroll(Long id, Long userId) {
+        if (this.sessionRepository.takeSeat(id) == 0) {
+            return joinWaitlist(id, userId);
+        }
+
+        int inserted;
+        try {
+            inserted = this.sessionRepository.addParticipant(id, userId);
+        } catch (DataIntegrityViolationException e) {
             throw new BadRequestException();
         }
 
-        session.getUsers().add(user);
+        // Throwing rolls the seat counter back together with the transaction
+        if (inserted == 0) {
+            if (!this.userRepository.existsById(userId)) {
+                throw new NotFoundException();
+            }
+            throw new BadRequestException();
+        }
+        return ParticipationStatus.ENROLLED;
+    }
 
-        this.sessionRepository.save(session);
+    private ParticipationStatus joinWaitlist(Long id, Long userId) {
+        if (!this.sessionRepository.existsById(id) || !this.userRepository.existsById(userId)) {
+            throw new NotFoundException();
+        }
+        if (this.sessionRepository.countParticipant(id, userId) > 0
+                || this.waitlistRepository.existsBySessionIdAndUserId(id, userId)) {
+            throw new BadRequestException();
+        }
+
+        this.waitlistRepository.save(WaitlistEntry.builder().sessionId(id).userId(userId).build());
+        return ParticipationStatus.WAITLISTED;
     }
 
-    public void noLongerParticipate(Long id, Long userId) {
-        Session session = this.sessionRepository.findById(id).orElse(null);
-        if (session == null) {
+    private void withdraw(Long id, Long userId) {
+        if (!this.sessionRepository.lockSeats(id).isPresent()) {
             throw new NotFoundException();
         }
 
-        boolean alreadyParticipate = session.getUsers().stream().anyMatch(o -> o.getId().equals(userId));
-        if(!alreadyParticipate) {
-            throw new BadRequestException();
+        if (this.sessionRepository.removeParticipant(id, userId) == 0) {
+            if (this.waitlistRepository.deleteBySessionIdAndUserId(id, userId) == 0) {
+                throw new BadRequestException();
+            }
+            return;
         }
 
-        session.setUsers(session.getUsers().stream().filter(user -> !user.getId().equals(userId)).collect(Collectors.toList()));
+        promoteFromWaitlist(id);
+    }
+
+    // Free seats are handed over to the oldest waitlist entries, as long as there are both
+    private void fillFromWaitlist(Long id) {
+        Optional<WaitlistEntry> next = this.waitlistRepository.findFirstBySessionIdOrderByIdAsc(id);
+        while (next.isPresent() && this.sessionRepository.takeSeat(id) == 1) {
+            this.waitlistRepository.delete(next.get());
+            if (this.sessionRepository.addParticipant(id, next.get().getUserId()) == 0) {
+                this.sessionRepository.releaseSeat(id);
+            }
+            next = this.waitlistRepository.findFirstBySessionIdOrderByIdAsc(id);
+        }
+    }
+
+    // The freed seat is handed over to the oldest waitlist entry, so the counter only
+    // goes down when nobody is waiting.
+    private void promoteFromWaitlist(Long id) {
+        Optional<WaitlistEntry> next = this.waitlistRepository.findFirstBySessionIdOrderByIdAsc(id);
+        while (next.isPresent()) {
+            this.waitlistRepository.delete(next.get());
+            if (this.sessionRepository.addParticipant(id, next.get().getUserId()) == 1) {
+                this.sessionRepository.touch(id);
+                return;
+            }
+            next = this.waitlistRepository.findFirstBySessionIdOrderByIdAsc(id);
+        }
 
-        this.sessionRepository.save(session);
+        this.sessionRepository.releaseSeat(id);
     }
 }
@@ -0,0 +1,84 @@
+package com.openclassrooms.starterjwt.services;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.stats.CacheStats;
+import com.openclassrooms.starterjwt.dto.TeacherDto;
+import com.openclassrooms.starterjwt.mapper.TeacherMapper;
+import com.openclassrooms.starterjwt.models.Teacher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Read-through cache of the teacher catalog, holding already mapped DTOs.
+ * Anything that writes teachers must call {@link #invalidate(Long)} or {@link #invalidateAll()}.
+ */
+@Component
+public class TeacherCatalog {
+    private static final String ALL = "all";
+
+    private final TeacherService teacherService;
+
+    private final TeacherMapper teacherMapper;
+
+    private final Cache<Long, TeacherDto> teachers;
+
+    private final Cache<String, List<TeacherDto>> catalog;
+
+    public TeacherCatalog(TeacherService teacherService,
+                          TeacherMapper teacherMapper,
+                          @Value("${oc.app.teacherCache.maxSize:1000}") long maxSize,
+                          @Value("${oc.app.teacherCache.ttlSeconds:600}") long ttlSeconds) {
+        this.teacherService = teacherService;
+        this.teacherMapper = teacherMapper;
+        this.teachers = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+        this.catalog = Caffeine.newBuilder()
+                .maximumSize(1)
+                .expireAfterWrite(Duration.ofSeconds(ttlSeconds))
+                .recordStats()
+                .build();
+    }
+
+    public List<TeacherDto> findAll() {
+        return this.catalog.get(ALL, key -> {
+            List<TeacherDto> dtos = Collections.unmodifiableList(new ArrayList<>(this.teacherMapper.toDto(this.teacherService.findAll())));
+            dtos.stream().filter(dto -> dto.getId() != null).forEach(dto -> this.teachers.put(dto.getId(), dto));
+            return dtos;
+        });
+    }
+
+    // Unknown ids are not cached, so probing random ids cannot fill the cache
+    public TeacherDto findById(Long id) {
+        return this.teachers.get(id, key -> {
+            Teacher teacher = this.teacherService.findById(key);
+            return teacher != null ? this.teacherMapper.toDto(teacher) : null;
+        });
+    }
+
+    public void invalidate(Long id) {
+        this.teachers.invalidate(id);
+        this.catalog.invalidateAll();
+    }
+
+    public void invalidateAll() {
+        this.teachers.invalidateAll();
+        this.catalog.invalidateAll();
+    }
+
+    public CacheStats getTeacherStats() {
+        return this.teachers.stats();
+    }
+
+    public CacheStats getCatalogStats() {
+        return this.catalog.stats();
+    }
+}
@@ -3,6 +3,10 @@ package com.openclassrooms.starterjwt.services;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.UserRepository;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
 
 @Service
 public class UserService {
@@ -16,7 +20,13 @@ public class UserService {
         this.userRepository.deleteById(id);
     }
 
+    @Transactional(readOnly = true)
     public User findById(Long id) {
         return this.userRepository.findById(id).orElse(null);
     }
+
+    @Transactional(readOnly = true)
+    public List<User> findAllById(Collection<Long> ids) {
+        return this.userRepository.findAllById(ids);
+    }
 }
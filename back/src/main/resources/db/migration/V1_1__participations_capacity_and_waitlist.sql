@@ -0,0 +1,27 @@
+-- The original schema let concurrent enrollments insert the same participation twice,
+-- and rows without a session or a user. Only one copy of each valid row is kept before
+-- a participation becomes unique.
+CREATE TABLE `PARTICIPATE_DISTINCT` AS
+  SELECT DISTINCT `user_id`, `session_id` FROM `PARTICIPATE`
+  WHERE `user_id` IS NOT NULL AND `session_id` IS NOT NULL;
+DELETE FROM `PARTICIPATE`;
+INSERT INTO `PARTICIPATE` (`user_id`, `session_id`) SELECT `user_id`, `session_id` FROM `PARTICIPATE_DISTINCT`;
+DROP TABLE `PARTICIPATE_DISTINCT`;
+
+ALTER TABLE `PARTICIPATE` ADD CONSTRAINT `UK_PARTICIPATE_SESSION_USER` UNIQUE (`session_id`, `user_id`);
+
+-- Optional capacity, with the seats counter starting from the existing participations
+ALTER TABLE `SESSIONS` ADD `capacity` INT;
+ALTER TABLE `SESSIONS` ADD `seats_taken` INT NOT NULL DEFAULT 0;
+UPDATE `SESSIONS` SET `seats_taken` = (SELECT COUNT(*) FROM `PARTICIPATE` p WHERE p.`session_id` = `SESSIONS`.`id`);
+
+CREATE TABLE `WAITLIST` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `session_id` INT NOT NULL,
+  `user_id` INT NOT NULL,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP
+);
+
+ALTER TABLE `WAITLIST` ADD CONSTRAINT `FK_WAITLIST_USER` FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`) ON DELETE CASCADE;
+ALTER TABLE `WAITLIST` ADD CONSTRAINT `FK_WAITLIST_SESSION` FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`) ON DELETE CASCADE;
+ALTER TABLE `WAITLIST` ADD CONSTRAINT `UK_WAITLIST_SESSION_USER` UNIQUE (`session_id`, `user_id`);
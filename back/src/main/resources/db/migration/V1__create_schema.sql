@@ -0,0 +1,41 @@
+-- Schema previously created by ressources/sql/script.sql, unchanged. Foreign keys carry
+-- the names MySQL generated for it, so that databases created by that script can be
+-- baselined at this version.
+
+CREATE TABLE `TEACHERS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `last_name` VARCHAR(40),
+  `first_name` VARCHAR(40),
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE TABLE `SESSIONS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `name` VARCHAR(50),
+  `description` VARCHAR(2000),
+  `date` TIMESTAMP,
+  `teacher_id` int,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE TABLE `USERS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `last_name` VARCHAR(40),
+  `first_name` VARCHAR(40),
+  `admin` BOOLEAN NOT NULL DEFAULT false,
+  `email` VARCHAR(255),
+  `password` VARCHAR(255),
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE TABLE `PARTICIPATE` (
+  `user_id` INT,
+  `session_id` INT
+);
+
+ALTER TABLE `SESSIONS` ADD CONSTRAINT `SESSIONS_ibfk_1` FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD CONSTRAINT `PARTICIPATE_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD CONSTRAINT `PARTICIPATE_ibfk_2` FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
@@ -0,0 +1,34 @@
+-- Identifiers are widened to BIGINT to match the Long ids of the entities, which
+-- lets Hibernate validate the schema. Foreign keys have to be dropped meanwhile.
+ALTER TABLE `SESSIONS` DROP FOREIGN KEY `SESSIONS_ibfk_1`;
+ALTER TABLE `PARTICIPATE` DROP FOREIGN KEY `PARTICIPATE_ibfk_1`;
+ALTER TABLE `PARTICIPATE` DROP FOREIGN KEY `PARTICIPATE_ibfk_2`;
+ALTER TABLE `WAITLIST` DROP FOREIGN KEY `FK_WAITLIST_USER`;
+ALTER TABLE `WAITLIST` DROP FOREIGN KEY `FK_WAITLIST_SESSION`;
+
+ALTER TABLE `TEACHERS` MODIFY `id` BIGINT NOT NULL AUTO_INCREMENT;
+ALTER TABLE `USERS` MODIFY `id` BIGINT NOT NULL AUTO_INCREMENT;
+ALTER TABLE `SESSIONS` MODIFY `id` BIGINT NOT NULL AUTO_INCREMENT;
+ALTER TABLE `SESSIONS` MODIFY `teacher_id` BIGINT;
+ALTER TABLE `WAITLIST` MODIFY `id` BIGINT NOT NULL AUTO_INCREMENT;
+ALTER TABLE `WAITLIST` MODIFY `session_id` BIGINT NOT NULL;
+ALTER TABLE `WAITLIST` MODIFY `user_id` BIGINT NOT NULL;
+ALTER TABLE `PARTICIPATE` MODIFY `session_id` BIGINT NOT NULL;
+ALTER TABLE `PARTICIPATE` MODIFY `user_id` BIGINT NOT NULL;
+
+-- A participation is identified by its session and user, the primary key replaces
+-- the unique constraint and serves every lookup by session. V1_1 already removed the
+-- duplicate and incomplete rows the original schema allowed.
+ALTER TABLE `PARTICIPATE` DROP INDEX `UK_PARTICIPATE_SESSION_USER`;
+ALTER TABLE `PARTICIPATE` ADD CONSTRAINT `PK_PARTICIPATE` PRIMARY KEY (`session_id`, `user_id`);
+
+ALTER TABLE `SESSIONS` ADD CONSTRAINT `FK_SESSIONS_TEACHER` FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD CONSTRAINT `FK_PARTICIPATE_USER` FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD CONSTRAINT `FK_PARTICIPATE_SESSION` FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
+ALTER TABLE `WAITLIST` ADD CONSTRAINT `FK_WAITLIST_USER` FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`) ON DELETE CASCADE;
+ALTER TABLE `WAITLIST` ADD CONSTRAINT `FK_WAITLIST_SESSION` FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`) ON DELETE CASCADE;
+
+-- Foreign key columns are already indexed by InnoDB, these cover the remaining
+-- hot queries: login by email, and keyset paging and exports ordered by date.
+ALTER TABLE `USERS` ADD CONSTRAINT `UK_USERS_EMAIL` UNIQUE (`email`);
+CREATE INDEX `IDX_SESSIONS_DATE` ON `SESSIONS` (`date`, `id`);
@@ -0,0 +1,25 @@
+-- Teachers, users and sessions no longer use AUTO_INCREMENT, which keeps Hibernate from
+-- batching their inserts: ids are allocated from these one-row tables, 50 at a time, the
+-- table holding the lowest id of the next block. Any other writer must allocate the same way.
+CREATE TABLE `TEACHERS_SEQ` (`next_val` BIGINT);
+CREATE TABLE `USERS_SEQ` (`next_val` BIGINT);
+CREATE TABLE `SESSIONS_SEQ` (`next_val` BIGINT);
+INSERT INTO `TEACHERS_SEQ` (`next_val`) SELECT COALESCE(MAX(`id`), 0) + 1 FROM `TEACHERS`;
+INSERT INTO `USERS_SEQ` (`next_val`) SELECT COALESCE(MAX(`id`), 0) + 1 FROM `USERS`;
+INSERT INTO `SESSIONS_SEQ` (`next_val`) SELECT COALESCE(MAX(`id`), 0) + 1 FROM `SESSIONS`;
+
+ALTER TABLE `SESSIONS` DROP FOREIGN KEY `FK_SESSIONS_TEACHER`;
+ALTER TABLE `PARTICIPATE` DROP FOREIGN KEY `FK_PARTICIPATE_USER`;
+ALTER TABLE `PARTICIPATE` DROP FOREIGN KEY `FK_PARTICIPATE_SESSION`;
+ALTER TABLE `WAITLIST` DROP FOREIGN KEY `FK_WAITLIST_USER`;
+ALTER TABLE `WAITLIST` DROP FOREIGN KEY `FK_WAITLIST_SESSION`;
+
+ALTER TABLE `TEACHERS` MODIFY `id` BIGINT NOT NULL;
+ALTER TABLE `USERS` MODIFY `id` BIGINT NOT NULL;
+ALTER TABLE `SESSIONS` MODIFY `id` BIGINT NOT NULL;
+
+ALTER TABLE `SESSIONS` ADD CONSTRAINT `FK_SESSIONS_TEACHER` FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD CONSTRAINT `FK_PARTICIPATE_USER` FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD CONSTRAINT `FK_PARTICIPATE_SESSION` FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
+ALTER TABLE `WAITLIST` ADD CONSTRAINT `FK_WAITLIST_USER` FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`) ON DELETE CASCADE;
+ALTER TABLE `WAITLIST` ADD CONSTRAINT `FK_WAITLIST_SESSION` FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`) ON DELETE CASCADE;
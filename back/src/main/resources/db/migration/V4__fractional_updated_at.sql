@@ -0,0 +1,4 @@
+-- ETags are derived from updated_at, which only kept whole seconds: two changes of a
+-- session within the same second left its ETag unchanged. Microseconds are kept now.
+ALTER TABLE `TEACHERS` MODIFY `updated_at` DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
+ALTER TABLE `SESSIONS` MODIFY `updated_at` DATETIME(6) DEFAULT CURRENT_TIMESTAMP(6) ON UPDATE CURRENT_TIMESTAMP(6);
@@ -3,8 +3,13 @@ package com.openclassrooms.starterjwt;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
+import java.util.concurrent.CompletionException;
+
+import javax.persistence.EntityManagerFactory;
 import javax.transaction.Transactional;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -29,6 +34,9 @@ public class AuthControllerIT {
     @Autowired
     private AuthController authController;
 
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private EmbeddedDatabase db;
 
     @BeforeEach
@@ -58,21 +66,37 @@ public class AuthControllerIT {
         loginRequest.setEmail("yoga@studio.com");
         loginRequest.setPassword("test!1234");
 
-        ResponseEntity<?> response = authController.authenticateUser(loginRequest);
+        ResponseEntity<?> response = authController.authenticateUser(loginRequest).join();
 
         assertThat(response.getStatusCodeValue()).isEqualTo(200);
         assertThat(response.getBody().getClass()).isEqualTo(JwtResponse.class);
     }
 
+    @Test
+    public void authenticateUser_shouldQueryTheUserOnlyOnce() {
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("yoga@studio.com");
+        loginRequest.setPassword("test!1234");
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        entityManagerFactory.getCache().evictAll();
+        statistics.clear();
+
+        JwtResponse response = (JwtResponse) authController.authenticateUser(loginRequest).join().getBody();
+
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+        assertThat(response.getAdmin()).isTrue();
+    }
+
     @Test
     public void authenticateUser_shouldThrowAuthenticateException() {
         LoginRequest loginRequest = new LoginRequest();
         loginRequest.setEmail("test@test.com");
         loginRequest.setPassword("password");
 
-        assertThrows(BadCredentialsException.class, () -> {
-            authController.authenticateUser(loginRequest);
+        CompletionException exception = assertThrows(CompletionException.class, () -> {
+            authController.authenticateUser(loginRequest).join();
         });
+        assertThat(exception.getCause()).isInstanceOf(BadCredentialsException.class);
     }
 
 }
@@ -1,14 +1,20 @@
 package com.openclassrooms.starterjwt;
 
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.crypto.password.PasswordEncoder;
 
@@ -17,6 +23,7 @@ import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.payload.request.SignupRequest;
 import com.openclassrooms.starterjwt.payload.response.MessageResponse;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.security.services.PasswordHashingExecutor;
 import static org.assertj.core.api.Assertions.assertThat;
 
 @ExtendWith(MockitoExtension.class)
@@ -28,6 +35,9 @@ public class AuthControllerTest {
     @Mock
     private UserRepository userRepository;
 
+    @Spy
+    private PasswordHashingExecutor passwordHashingExecutor = new PasswordHashingExecutor(1, 0, 5);
+
     @InjectMocks
     private AuthController authController;
 
@@ -42,7 +52,7 @@ public class AuthControllerTest {
         when(userRepository.existsByEmail(signupRequest.getEmail())).thenReturn(false);
         when(passwordEncoder.encode(signupRequest.getPassword())).thenReturn("encodedPassword");
 
-        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        ResponseEntity<?> response = authController.registerUser(signupRequest).join();
 
         assertThat(response.getStatusCodeValue()).isEqualTo(200);
         verify(userRepository).save(any(User.class));
@@ -58,7 +68,7 @@ public class AuthControllerTest {
 
         when(userRepository.existsByEmail(signupRequest.getEmail())).thenReturn(true);
 
-        ResponseEntity<?> response = authController.registerUser(signupRequest);
+        ResponseEntity<?> response = authController.registerUser(signupRequest).join();
 
         MessageResponse message = (MessageResponse) response.getBody();
 
@@ -66,4 +76,35 @@ public class AuthControllerTest {
         assertThat(message.getMessage()).isEqualTo("Error: Email is already taken!");
     }
 
+    @Test
+    public void registerUser_shouldReturnServiceUnavailableWhenSaturated() throws InterruptedException {
+        SignupRequest signupRequest = new SignupRequest();
+        signupRequest.setFirstName("John");
+        signupRequest.setLastName("Doe");
+        signupRequest.setPassword("password");
+        signupRequest.setEmail("test@test.com");
+
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        CompletableFuture<Object> busy = passwordHashingExecutor.submit(() -> {
+            started.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return null;
+        });
+        started.await();
+
+        ResponseEntity<?> response = authController.registerUser(signupRequest).join();
+        release.countDown();
+        busy.join();
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(503);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.RETRY_AFTER)).isEqualTo("5");
+        assertThat(passwordHashingExecutor.getRejectedCount()).isEqualTo(1);
+        verify(userRepository, never()).save(any(User.class));
+    }
+
 }
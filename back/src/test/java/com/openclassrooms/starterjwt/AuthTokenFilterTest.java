@@ -0,0 +1,105 @@
+package com.openclassrooms.starterjwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+import com.openclassrooms.starterjwt.security.jwt.AuthTokenFilter;
+import com.openclassrooms.starterjwt.security.jwt.JwtParseResult;
+import com.openclassrooms.starterjwt.security.jwt.JwtTokenCache;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+import com.openclassrooms.starterjwt.security.services.UserDetailsServiceImpl;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.impl.DefaultClaims;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+public class AuthTokenFilterTest {
+
+    @Mock
+    private JwtUtils jwtUtils;
+
+    @Mock
+    private JwtTokenCache tokenCache;
+
+    @Mock
+    private UserDetailsServiceImpl userDetailsService;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @InjectMocks
+    private AuthTokenFilter authTokenFilter;
+
+    private final UserDetailsImpl principal = UserDetailsImpl.builder().id(1L).username("yoga@studio.com").build();
+
+    @BeforeEach
+    @AfterEach
+    public void clearSecurityContext() {
+        SecurityContextHolder.clearContext();
+    }
+
+    private MockHttpServletRequest requestWithToken() {
+        MockHttpServletRequest request = new MockHttpServletRequest();
+        request.addHeader("Authorization", "Bearer token");
+        return request;
+    }
+
+    @Test
+    public void doFilter_shouldUseCachedPrincipalWithoutParsing() throws Exception {
+        when(tokenCache.get("token")).thenReturn(principal);
+
+        authTokenFilter.doFilter(requestWithToken(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isSameAs(principal);
+        verify(jwtUtils, never()).parse(anyString());
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+        assertThat(meterRegistry.timer("auth.token.resolve", "source", "cached").count()).isEqualTo(1);
+    }
+
+    @Test
+    public void doFilter_shouldParseOnceAndCacheOnMiss() throws Exception {
+        Claims claims = new DefaultClaims().setSubject("yoga@studio.com").setExpiration(new Date());
+        when(jwtUtils.parse("token")).thenReturn(JwtParseResult.success(claims));
+        when(jwtUtils.getUserDetailsFromClaims(claims)).thenReturn(principal);
+
+        authTokenFilter.doFilter(requestWithToken(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication().getPrincipal()).isSameAs(principal);
+        verify(tokenCache).put("token", principal, claims.getExpiration());
+        verify(userDetailsService, never()).loadUserByUsername(anyString());
+    }
+
+    @Test
+    public void doFilter_shouldNotAuthenticateInvalidToken() throws Exception {
+        when(jwtUtils.parse("token")).thenReturn(JwtParseResult.failure(JwtParseResult.Failure.MALFORMED));
+
+        authTokenFilter.doFilter(requestWithToken(), new MockHttpServletResponse(), new MockFilterChain());
+
+        assertThat(SecurityContextHolder.getContext().getAuthentication()).isNull();
+        verify(tokenCache, never()).put(anyString(), any(), any());
+        assertThat(meterRegistry.counter("auth.failures", "cause", "malformed").count()).isEqualTo(1);
+        assertThat(meterRegistry.timer("auth.token.resolve", "source", "rejected").count()).isEqualTo(1);
+    }
+}
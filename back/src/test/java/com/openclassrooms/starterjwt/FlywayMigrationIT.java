@@ -0,0 +1,52 @@
+package com.openclassrooms.starterjwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Arrays;
+
+import org.flywaydb.core.Flyway;
+import org.flywaydb.core.api.MigrationInfo;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+// A database created by the original script, taken over at version 1 like the application does
+public class FlywayMigrationIT {
+    private static final String URL = "jdbc:h2:mem:legacy;MODE=MySQL;DB_CLOSE_DELAY=-1";
+
+    @Test
+    public void migrate_shouldUpgradeADatabaseCreatedByTheOriginalScript() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(URL, "sa", "");
+        ResourceDatabasePopulator populator = new ResourceDatabasePopulator(new ClassPathResource("db/legacy/script.sql"));
+        populator.setSqlScriptEncoding("UTF-8");
+        populator.execute(dataSource);
+
+        Flyway flyway = Flyway.configure()
+                .dataSource(dataSource)
+                .locations("classpath:db/migration")
+                .baselineOnMigrate(true)
+                .baselineVersion("1")
+                .load();
+        flyway.migrate();
+
+        assertThat(Arrays.stream(flyway.info().applied()).map(MigrationInfo::getVersion).map(Object::toString))
+                .startsWith("1", "1.1", "2", "3", "4");
+        assertThat(flyway.info().pending()).isEmpty();
+
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        assertThat(jdbcTemplate.queryForList("SELECT session_id || ':' || user_id FROM PARTICIPATE ORDER BY session_id, user_id", String.class))
+                .containsExactly("1:1", "1:2", "2:1");
+        assertThat(jdbcTemplate.queryForList("SELECT seats_taken FROM SESSIONS ORDER BY id", Integer.class))
+                .containsExactly(2, 1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM WAITLIST", Long.class)).isZero();
+        assertThat(jdbcTemplate.queryForObject("SELECT next_val FROM USERS_SEQ", Long.class)).isEqualTo(3);
+        assertThat(jdbcTemplate.queryForObject("SELECT next_val FROM SESSIONS_SEQ", Long.class)).isEqualTo(3);
+        // Second-precision update timestamps would let two changes within a second share an ETag
+        assertThat(jdbcTemplate.queryForList("SELECT COLUMN_TYPE FROM INFORMATION_SCHEMA.COLUMNS "
+                + "WHERE TABLE_NAME IN ('SESSIONS', 'TEACHERS') AND COLUMN_NAME = 'UPDATED_AT'", String.class))
+                .hasSize(2)
+                .allMatch(type -> type.startsWith("DATETIME(6)"));
+    }
+}
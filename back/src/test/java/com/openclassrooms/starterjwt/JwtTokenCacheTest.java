@@ -0,0 +1,50 @@
+package com.openclassrooms.starterjwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtTokenCache;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+public class JwtTokenCacheTest {
+
+    private final UserDetailsImpl principal = UserDetailsImpl.builder().id(1L).username("yoga@studio.com").build();
+
+    @Test
+    public void get_shouldReturnCachedPrincipal() {
+        JwtTokenCache cache = new JwtTokenCache(10);
+
+        assertThat(cache.get("token")).isNull();
+        cache.put("token", principal, new Date(System.currentTimeMillis() + 60000));
+
+        assertThat(cache.get("token")).isSameAs(principal);
+        assertThat(cache.getHitCount()).isEqualTo(1);
+        assertThat(cache.getMissCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void get_shouldNeverReturnExpiredToken() throws InterruptedException {
+        JwtTokenCache cache = new JwtTokenCache(10);
+
+        cache.put("expired", principal, new Date(System.currentTimeMillis() - 1));
+        cache.put("expiring", principal, new Date(System.currentTimeMillis() + 20));
+        Thread.sleep(40);
+
+        assertThat(cache.get("expired")).isNull();
+        assertThat(cache.get("expiring")).isNull();
+    }
+
+    @Test
+    public void put_shouldStayWithinSizeCap() {
+        JwtTokenCache cache = new JwtTokenCache(100);
+
+        for (int i = 0; i < 1000; i++) {
+            cache.put("token" + i, principal, new Date(System.currentTimeMillis() + 60000));
+        }
+
+        assertThat(cache.size()).isLessThanOrEqualTo(100);
+    }
+}
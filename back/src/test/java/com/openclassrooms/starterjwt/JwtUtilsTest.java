@@ -0,0 +1,99 @@
+package com.openclassrooms.starterjwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.Date;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+
+import com.openclassrooms.starterjwt.security.jwt.JwtParseResult;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.SignatureAlgorithm;
+
+public class JwtUtilsTest {
+
+    private JwtUtils jwtUtils;
+
+    @BeforeEach
+    public void setup() {
+        this.jwtUtils = new JwtUtils("openclassrooms", 86400000);
+    }
+
+    private String generateToken() {
+        UserDetailsImpl userDetails = UserDetailsImpl.builder()
+                .id(42L)
+                .username("yoga@studio.com")
+                .firstName("Admin")
+                .lastName("Yoga")
+                .admin(true)
+                .build();
+
+        return jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(userDetails, null));
+    }
+
+    @Test
+    public void getUserDetailsFromClaims_shouldRestoreThePrincipal() {
+        Claims claims = jwtUtils.getClaimsFromJwtToken(generateToken());
+
+        UserDetailsImpl userDetails = jwtUtils.getUserDetailsFromClaims(claims);
+
+        assertThat(userDetails.getId()).isEqualTo(42L);
+        assertThat(userDetails.getUsername()).isEqualTo("yoga@studio.com");
+        assertThat(userDetails.getFirstName()).isEqualTo("Admin");
+        assertThat(userDetails.getLastName()).isEqualTo("Yoga");
+        assertThat(userDetails.getAdmin()).isTrue();
+    }
+
+    @Test
+    public void getUserDetailsFromClaims_shouldReturnNullForLegacyToken() {
+        String legacyToken = Jwts.builder()
+                .setSubject("yoga@studio.com")
+                .setExpiration(new Date(System.currentTimeMillis() + 60000))
+                .signWith(SignatureAlgorithm.HS512, "openclassrooms")
+                .compact();
+
+        Claims claims = jwtUtils.getClaimsFromJwtToken(legacyToken);
+
+        assertThat(claims.getSubject()).isEqualTo("yoga@studio.com");
+        assertThat(jwtUtils.getUserDetailsFromClaims(claims)).isNull();
+    }
+
+    @Test
+    public void parse_shouldReportTypedFailures() {
+        String expiredToken = new JwtUtils("openclassrooms", -1000).generateJwtToken(
+                new UsernamePasswordAuthenticationToken(UserDetailsImpl.builder().id(1L).username("yoga@studio.com").build(), null));
+
+        assertThat(jwtUtils.parse(generateToken()).isValid()).isTrue();
+        assertThat(jwtUtils.parse(expiredToken).getFailure()).isEqualTo(JwtParseResult.Failure.EXPIRED);
+        assertThat(jwtUtils.parse(new JwtUtils("other", 60000).generateJwtToken(
+                new UsernamePasswordAuthenticationToken(UserDetailsImpl.builder().id(1L).build(), null))).getFailure())
+                .isEqualTo(JwtParseResult.Failure.INVALID_SIGNATURE);
+        assertThat(jwtUtils.parse("not-a-token").getFailure()).isEqualTo(JwtParseResult.Failure.MALFORMED);
+        assertThat(jwtUtils.parse("").getFailure()).isEqualTo(JwtParseResult.Failure.EMPTY);
+    }
+
+    @Test
+    public void parse_shouldAcceptTokensSignedWithTheStringSecret() {
+        String legacyToken = Jwts.builder()
+                .setSubject("yoga@studio.com")
+                .signWith(SignatureAlgorithm.HS512, "openclassrooms")
+                .compact();
+
+        assertThat(jwtUtils.getUserNameFromJwtToken(legacyToken)).isEqualTo("yoga@studio.com");
+    }
+
+    @Test
+    public void getClaimsFromJwtToken_shouldReturnNullForInvalidToken() {
+        String token = generateToken();
+
+        assertThat(jwtUtils.getClaimsFromJwtToken(token + "x")).isNull();
+        assertThat(jwtUtils.getClaimsFromJwtToken("not.a.token")).isNull();
+        assertThat(jwtUtils.validateJwtToken(token)).isTrue();
+    }
+}
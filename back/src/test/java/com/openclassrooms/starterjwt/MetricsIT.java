@@ -0,0 +1,78 @@
+package com.openclassrooms.starterjwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.web.server.LocalManagementPort;
+import org.springframework.boot.test.autoconfigure.actuate.metrics.AutoConfigureMetrics;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.openclassrooms.starterjwt.payload.request.LoginRequest;
+
+// Without the test profile, so that the real security configuration applies on both ports
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.profiles.active=metrics", "management.server.port=0"})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@AutoConfigureMetrics
+public class MetricsIT {
+
+    @Autowired
+    private TestRestTemplate restTemplate;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    private ResponseEntity<String> get(String path, String token) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(token);
+        return this.restTemplate.exchange(path, HttpMethod.GET, new HttpEntity<>(headers), String.class);
+    }
+
+    private String scrape() {
+        ResponseEntity<String> response = this.restTemplate
+                .getForEntity("http://localhost:" + this.managementPort + "/actuator/prometheus", String.class);
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        return response.getBody();
+    }
+
+    @Test
+    public void prometheus_shouldExposeRequestServiceAndPoolMetrics() {
+        LoginRequest loginRequest = new LoginRequest();
+        loginRequest.setEmail("yoga@studio.com");
+        loginRequest.setPassword("test!1234");
+        JsonNode jwt = this.restTemplate.postForObject("/api/auth/login", loginRequest, JsonNode.class);
+
+        assertThat(get("/api/session", jwt.get("token").asText()).getStatusCode()).isEqualTo(HttpStatus.OK);
+
+        assertThat(scrape())
+                .contains("http_server_requests_seconds_count{")
+                .contains("uri=\"/api/session\"")
+                .contains("session_service_seconds_count{class=\"com.openclassrooms.starterjwt.services.SessionService\",exception=\"none\",method=\"findAllSummaries\"")
+                .contains("auth_token_resolve_seconds_count{source=\"parsed\"")
+                .contains("spring_data_repository_invocations_seconds_count")
+                .contains("hikaricp_connections_active")
+                .contains("executor_completed_total{name=\"password-hashing\"");
+    }
+
+    @Test
+    public void prometheus_shouldCountAuthFailuresByCause() {
+        assertThat(get("/api/session", "not-a-jwt").getStatusCode()).isEqualTo(HttpStatus.UNAUTHORIZED);
+
+        assertThat(scrape()).contains("auth_failures_total{cause=\"malformed\",}");
+    }
+
+    @Test
+    public void actuator_shouldNotBeServedOnTheApplicationPort() {
+        assertThat(this.restTemplate.getForEntity("/actuator/prometheus", String.class).getStatusCode())
+                .isEqualTo(HttpStatus.UNAUTHORIZED);
+    }
+}
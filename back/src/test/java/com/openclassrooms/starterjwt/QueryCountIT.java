@@ -0,0 +1,190 @@
+package com.openclassrooms.starterjwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import com.openclassrooms.starterjwt.metrics.QueryCountFilter;
+import com.openclassrooms.starterjwt.metrics.QueryCounter;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.SessionRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+
+// Not transactional: the inserted sessions must be visible to the requests
+@SpringBootTest
+@AutoConfigureMockMvc
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class QueryCountIT {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private SessionRepository sessionRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> sessionIds = new ArrayList<>();
+
+    @AfterEach
+    public void tearDown() {
+        for (Long id : this.sessionIds) {
+            this.jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ?", id);
+            this.jdbcTemplate.update("DELETE FROM SESSIONS WHERE id = ?", id);
+        }
+    }
+
+    private int queryCount(String path) throws Exception {
+        MvcResult result = this.mockMvc.perform(get(path)).andExpect(status().isOk()).andReturn();
+        assertThat(result.getResponse().getHeader(QueryCountFilter.TIME_HEADER)).isNotNull();
+        return Integer.parseInt(result.getResponse().getHeader(QueryCountFilter.COUNT_HEADER));
+    }
+
+    // Entities cached by an earlier request would hide statements
+    private int uncachedQueryCount(String path) throws Exception {
+        this.entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+        return queryCount(path);
+    }
+
+    @Test
+    public void findById_shouldReportItsStatementsInHeadersAndMetrics() throws Exception {
+        assertThat(queryCount("/api/session/1")).isPositive();
+
+        DistributionSummary queries = this.meterRegistry.find("http.server.requests.queries")
+                .tags("method", "GET", "uri", "/api/session/{id}")
+                .summary();
+        assertThat(queries).isNotNull();
+        assertThat(queries.count()).isPositive();
+    }
+
+    @Test
+    public void findAll_shouldNotRunMoreStatementsWithMoreSessions() throws Exception {
+        int before = queryCount("/api/session");
+
+        for (int i = 0; i < 5; i++) {
+            long id = TestIds.allocate(this.jdbcTemplate, "SESSIONS", 1);
+            this.jdbcTemplate.update("INSERT INTO SESSIONS (id, name, description, date, teacher_id) "
+                    + "VALUES (?, 'Counted', 'Query count', CURRENT_TIMESTAMP, 1)", id);
+            this.jdbcTemplate.update("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, 1)", id);
+            this.sessionIds.add(id);
+        }
+
+        assertThat(queryCount("/api/session")).isEqualTo(before);
+    }
+
+    @Test
+    public void findPage_shouldNotRunMoreStatementsForABiggerPage() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            long id = TestIds.allocate(this.jdbcTemplate, "SESSIONS", 1);
+            this.jdbcTemplate.update("INSERT INTO SESSIONS (id, name, description, date, teacher_id) "
+                    + "VALUES (?, 'Counted', 'Query count', DATEADD('DAY', 1, CURRENT_TIMESTAMP), 1)", id);
+            this.jdbcTemplate.update("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, 1)", id);
+            this.sessionIds.add(id);
+        }
+
+        assertThat(uncachedQueryCount("/api/session?size=7")).isEqualTo(uncachedQueryCount("/api/session?size=1"));
+        assertThat(uncachedQueryCount("/api/user/1/sessions?size=5")).isEqualTo(uncachedQueryCount("/api/user/1/sessions?size=1"));
+    }
+
+    @Test
+    public void forEachSession_shouldLoadParticipantsPerChunkWithoutFillingTheCache() {
+        List<Object[]> sessions = new ArrayList<>();
+        long firstId = TestIds.allocate(this.jdbcTemplate, "SESSIONS", 150);
+        for (long id = firstId; id < firstId + 150; id++) {
+            sessions.add(new Object[] { id });
+            this.sessionIds.add(id);
+        }
+        this.jdbcTemplate.batchUpdate("INSERT INTO SESSIONS (id, name, description, date, teacher_id) "
+                + "VALUES (?, 'Exported', 'Export', CURRENT_TIMESTAMP, 1)", sessions);
+        this.jdbcTemplate.batchUpdate("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (?, 1)", sessions);
+        Statistics statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<Long> exported = new ArrayList<>();
+        QueryCounter counter = QueryCounter.start();
+        try {
+            this.sessionService.forEachSession(null, null, (session, users) -> exported.addAll(users));
+        } finally {
+            QueryCounter.stop();
+        }
+
+        // The sessions, then the participants of the 152 sessions in chunks of 100
+        assertThat(exported).hasSize(150);
+        assertThat(counter.getCount()).isEqualTo(3);
+        assertThat(statistics.getSecondLevelCachePutCount()).isZero();
+    }
+
+    @Test
+    public void queryCounter_shouldCountTheStatementsOfACall() {
+        QueryCounter counter = QueryCounter.start();
+        try {
+            this.sessionService.findAllSummaries();
+        } finally {
+            QueryCounter.stop();
+        }
+
+        assertThat(counter.getCount()).isEqualTo(1);
+        assertThat(QueryCounter.current()).isNull();
+    }
+
+    @Test
+    public void saveAll_shouldInsertTheSessionsAndTheirParticipantsInBatches() {
+        List<Session> sessions = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            sessions.add(Session.builder()
+                    .name("Batched")
+                    .description("Batch insert")
+                    .date(new Date())
+                    .teacher(Teacher.builder().id(1L).build())
+                    .users(new ArrayList<>(Collections.singletonList(new User().setId(1L))))
+                    .build());
+        }
+
+        QueryCounter counter = QueryCounter.start();
+        try {
+            this.sessionRepository.saveAll(sessions).forEach(session -> this.sessionIds.add(session.getId()));
+        } finally {
+            QueryCounter.stop();
+        }
+
+        // At most one block of ids read and moved forward, then one batch per table
+        assertThat(counter.getCount()).isLessThanOrEqualTo(4);
+        assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PARTICIPATE p JOIN SESSIONS s ON s.id = p.session_id "
+                + "WHERE s.name = 'Batched'", Long.class)).isEqualTo(20);
+    }
+}
@@ -0,0 +1,139 @@
+package com.openclassrooms.starterjwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.autoconfigure.web.server.LocalManagementPort;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.test.web.reactive.server.WebTestClient;
+
+import com.openclassrooms.starterjwt.reactive.ReactiveReadApplication;
+import com.openclassrooms.starterjwt.security.jwt.JwtUtils;
+import com.openclassrooms.starterjwt.security.services.UserDetailsImpl;
+
+// Flyway migrates and seeds its own in-memory database, which the R2DBC pool then reads
+@SpringBootTest(classes = ReactiveReadApplication.class, webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT,
+        properties = {"spring.main.web-application-type=reactive",
+                "spring.config.name=" + ReactiveReadApplication.CONFIG_NAME,
+                "spring.r2dbc.url=r2dbc:h2:mem:///reactive",
+                "spring.flyway.url=jdbc:h2:mem:reactive;MODE=MySQL;DB_CLOSE_DELAY=-1",
+                "spring.flyway.user=sa",
+                "management.server.port=0"})
+public class ReactiveReadIT {
+
+    @Autowired
+    private WebTestClient webTestClient;
+
+    @Autowired
+    private JwtUtils jwtUtils;
+
+    @Autowired
+    private DatabaseClient databaseClient;
+
+    @LocalManagementPort
+    private int managementPort;
+
+    @AfterEach
+    public void tearDown() {
+        this.databaseClient.sql("DELETE FROM PARTICIPATE").then().block();
+    }
+
+    private String token() {
+        UserDetailsImpl user = UserDetailsImpl.builder()
+                .id(1L)
+                .username("yoga@studio.com")
+                .firstName("Admin")
+                .lastName("Admin")
+                .admin(true)
+                .build();
+        return this.jwtUtils.generateJwtToken(new UsernamePasswordAuthenticationToken(user, null));
+    }
+
+    private WebTestClient.ResponseSpec get(String path) {
+        return this.webTestClient.get().uri(path).headers(headers -> headers.setBearerAuth(token())).exchange();
+    }
+
+    @Test
+    public void findAll_shouldReturnTheSessionsWithTheirParticipants() {
+        this.databaseClient.sql("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (2, 1)").then().block();
+
+        get("/api/session").expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[0].id").isEqualTo(1)
+                .jsonPath("$[0].name").isEqualTo("Session de test 1")
+                .jsonPath("$[0].teacher_id").isEqualTo(1)
+                .jsonPath("$[0].users.length()").isEqualTo(0)
+                .jsonPath("$[1].users[0]").isEqualTo(1);
+    }
+
+    @Test
+    public void findAll_shouldAnswerNotModifiedForTheSameETag() {
+        String eTag = get("/api/session").expectStatus().isOk().returnResult(String.class).getResponseHeaders().getETag();
+
+        this.webTestClient.get().uri("/api/session")
+                .headers(headers -> {
+                    headers.setBearerAuth(token());
+                    headers.setIfNoneMatch(eTag);
+                })
+                .exchange()
+                .expectStatus().isNotModified()
+                .expectHeader().valueEquals(HttpHeaders.ETAG, eTag);
+    }
+
+    @Test
+    public void findById_shouldReturnTheSessionOrNotFound() {
+        this.databaseClient.sql("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (1, 1)").then().block();
+
+        get("/api/session/1").expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .expectBody()
+                .jsonPath("$.description").isEqualTo("Première session de test")
+                .jsonPath("$.users[0]").isEqualTo(1);
+        get("/api/session/999").expectStatus().isNotFound();
+        get("/api/session/abc").expectStatus().isBadRequest();
+    }
+
+    @Test
+    public void teachers_shouldBeListedAndFoundById() {
+        get("/api/teacher").expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2)
+                .jsonPath("$[1].lastName").isEqualTo("THIERCELIN");
+
+        String eTag = get("/api/teacher/1").expectStatus().isOk()
+                .expectBody().jsonPath("$.firstName").isEqualTo("Margot")
+                .returnResult().getResponseHeaders().getETag();
+        assertThat(eTag).startsWith("\"teacher-1-");
+
+        get("/api/teacher/999").expectStatus().isNotFound();
+    }
+
+    @Test
+    public void requests_withoutAValidToken_shouldBeUnauthorized() {
+        this.webTestClient.get().uri("/api/session").exchange().expectStatus().isUnauthorized();
+        this.webTestClient.get().uri("/api/teacher")
+                .headers(headers -> headers.setBearerAuth("not-a-jwt"))
+                .exchange()
+                .expectStatus().isUnauthorized();
+        this.webTestClient.get().uri("/api/teacher")
+                .headers(headers -> headers.setBearerAuth(new JwtUtils("other", 60000).generateJwtToken(
+                        new UsernamePasswordAuthenticationToken(UserDetailsImpl.builder().id(1L).username("yoga@studio.com").build(), null))))
+                .exchange()
+                .expectStatus().isUnauthorized();
+    }
+
+    @Test
+    public void health_shouldBeServedWithoutTokenOnTheManagementPort() {
+        WebTestClient.bindToServer().baseUrl("http://localhost:" + this.managementPort).build()
+                .get().uri("/actuator/health")
+                .exchange()
+                .expectStatus().isOk();
+    }
+}
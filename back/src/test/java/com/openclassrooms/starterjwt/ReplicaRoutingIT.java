@@ -0,0 +1,148 @@
+package com.openclassrooms.starterjwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.flywaydb.core.Flyway;
+import org.hibernate.Cache;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.openclassrooms.starterjwt.metrics.QueryCounter;
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+@SpringBootTest(properties = {"oc.app.replica.enabled=true",
+        "oc.app.replica.url=" + ReplicaRoutingIT.REPLICA_URL,
+        "oc.app.replica.username=sa",
+        "oc.app.replica.stickinessMillis=" + ReplicaRoutingIT.STICKINESS_MILLIS})
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class ReplicaRoutingIT {
+    static final String REPLICA_URL = "jdbc:h2:mem:replica;MODE=MySQL;DB_CLOSE_DELAY=-1";
+    static final long STICKINESS_MILLIS = 500;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private final List<Long> sessionIds = new ArrayList<>();
+
+    // A replica that stopped replicating after the seed data, so that every read tells where it ran
+    @BeforeAll
+    public static void createReplica() {
+        Flyway.configure()
+                .dataSource(REPLICA_URL, "sa", "")
+                .locations("classpath:db/migration", "classpath:db/testdata")
+                .load()
+                .migrate();
+        new JdbcTemplate(new DriverManagerDataSource(REPLICA_URL, "sa", ""))
+                .update("UPDATE SESSIONS SET name = 'Replica session' WHERE id = 1");
+    }
+
+    // The writes of a test keep the reads of the next one on the primary otherwise
+    @AfterEach
+    public void tearDown() throws InterruptedException {
+        this.sessionIds.forEach(id -> this.jdbcTemplate.update("DELETE FROM SESSIONS WHERE id = ?", id));
+        if (!this.sessionIds.isEmpty()) {
+            waitForTheStickinessWindow();
+        }
+    }
+
+    private static void waitForTheStickinessWindow() throws InterruptedException {
+        Thread.sleep(STICKINESS_MILLIS + 200);
+    }
+
+    private Long createSession() {
+        Session session = this.sessionService.create(Session.builder()
+                .name("Written")
+                .description("Primary only")
+                .date(new Date())
+                .teacher(Teacher.builder().id(1L).build())
+                .build());
+        this.sessionIds.add(session.getId());
+        return session.getId();
+    }
+
+    private String sessionName() {
+        return this.sessionService.getSummaryById(1L).getName();
+    }
+
+    @Test
+    public void readOnlyWork_shouldRunOnTheReplica() {
+        assertThat(sessionName()).isEqualTo("Replica session");
+        assertThat(this.jdbcTemplate.queryForObject("SELECT name FROM SESSIONS WHERE id = 1", String.class))
+                .isEqualTo("Session de test 1");
+    }
+
+    @Test
+    public void statements_shouldBeCountedOnceThroughTheRouting() {
+        QueryCounter counter = QueryCounter.start();
+        try {
+            sessionName();
+        } finally {
+            QueryCounter.stop();
+        }
+
+        assertThat(counter.getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void writes_shouldRunOnThePrimary() {
+        Long id = createSession();
+
+        assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM SESSIONS WHERE id = ?", Long.class, id)).isEqualTo(1);
+    }
+
+    @Test
+    public void reads_shouldStayOnThePrimaryAfterAWriteOfAnyThreadDuringTheStickinessWindow() throws InterruptedException {
+        // No security principal, as on the password-hashing pool or in async work
+        Long id = CompletableFuture.supplyAsync(this::createSession).join();
+
+        assertThat(this.sessionService.getSummaryById(id)).isNotNull();
+        assertThat(sessionName()).isEqualTo("Session de test 1");
+
+        waitForTheStickinessWindow();
+        assertThat(sessionName()).isEqualTo("Replica session");
+    }
+
+    @Test
+    public void replicaReads_shouldNotFillTheSecondLevelCache() {
+        Cache cache = this.entityManagerFactory.getCache().unwrap(Cache.class);
+        cache.evictEntityData(Session.class, 1L);
+
+        assertThat(this.sessionService.getById(1L).getName()).isEqualTo("Replica session");
+        assertThat(cache.containsEntity(Session.class, 1L)).isFalse();
+
+        createSession();
+        assertThat(this.sessionService.getById(1L).getName()).isEqualTo("Session de test 1");
+        assertThat(cache.containsEntity(Session.class, 1L)).isTrue();
+        cache.evictEntityData(Session.class, 1L);
+    }
+
+    // The limit that remains: a replica lagging more than the window still hides the write
+    @Test
+    public void reads_shouldLagBehindOnceTheStickinessWindowIsOver() throws InterruptedException {
+        Long id = createSession();
+
+        waitForTheStickinessWindow();
+        assertThat(this.sessionService.getSummaryById(id)).isNull();
+    }
+}
@@ -0,0 +1,139 @@
+package com.openclassrooms.starterjwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import javax.persistence.EntityManagerFactory;
+
+import org.hibernate.Cache;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.SessionService;
+import com.openclassrooms.starterjwt.services.TeacherService;
+import com.openclassrooms.starterjwt.services.UserService;
+
+// Not transactional: every read runs in its own persistence context, like separate requests
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class SecondLevelCacheIT {
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private TeacherService teacherService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Statistics statistics;
+
+    private Long sessionId;
+
+    private Long userId;
+
+    @BeforeEach
+    public void setup() {
+        this.sessionId = TestIds.allocate(this.jdbcTemplate, "SESSIONS", 1);
+        this.jdbcTemplate.update("INSERT INTO SESSIONS (id, name, description, date, teacher_id) "
+                + "VALUES (?, 'Cached session', 'Second-level cache', CURRENT_TIMESTAMP, 1)", this.sessionId);
+        this.userId = TestIds.allocate(this.jdbcTemplate, "USERS", 1);
+        this.jdbcTemplate.update("INSERT INTO USERS (id, first_name, last_name, admin, email, password) "
+                + "VALUES (?, 'Cached', 'User', false, 'cached@studio.com', 'password')", this.userId);
+
+        this.entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+        this.statistics = this.entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ?", this.sessionId);
+        this.jdbcTemplate.update("DELETE FROM SESSIONS WHERE id = ?", this.sessionId);
+        this.jdbcTemplate.update("DELETE FROM USERS WHERE id = ?", this.userId);
+        this.entityManagerFactory.getCache().unwrap(Cache.class).evictAllRegions();
+    }
+
+    @Test
+    public void repeatedReads_shouldNotIssueSql() {
+        this.sessionService.participate(this.sessionId, this.userId);
+        this.sessionService.getById(this.sessionId);
+        this.teacherService.findById(1L);
+        this.userService.findById(this.userId);
+        this.statistics.clear();
+
+        Session session = this.sessionService.getById(this.sessionId);
+        this.teacherService.findById(1L);
+        User user = this.userService.findById(this.userId);
+
+        assertThat(this.statistics.getPrepareStatementCount()).isZero();
+        assertThat(this.statistics.getSecondLevelCacheHitCount()).isGreaterThanOrEqualTo(5);
+        assertThat(session.getTeacher().getId()).isEqualTo(1L);
+        assertThat(session.getUsers()).containsExactly(user);
+    }
+
+    @Test
+    public void participate_shouldInvalidateTheCachedParticipants() {
+        this.sessionService.getById(this.sessionId);
+
+        this.sessionService.participate(this.sessionId, this.userId);
+        assertThat(this.sessionService.getById(this.sessionId).getUsers()).extracting(User::getId).containsExactly(this.userId);
+
+        this.sessionService.noLongerParticipate(this.sessionId, this.userId);
+        assertThat(this.sessionService.getById(this.sessionId).getUsers()).isEmpty();
+    }
+
+    @Test
+    public void participate_shouldKeepUnrelatedRegionsCached() {
+        this.teacherService.findById(1L);
+        this.userService.findById(this.userId);
+
+        this.sessionService.participate(this.sessionId, this.userId);
+        this.statistics.clear();
+        this.teacherService.findById(1L);
+        this.userService.findById(this.userId);
+
+        assertThat(this.statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void participate_shouldKeepTheOtherSessionsCached() {
+        this.sessionService.getById(1L);
+
+        this.sessionService.participate(this.sessionId, this.userId);
+        this.sessionService.noLongerParticipate(this.sessionId, this.userId);
+        this.statistics.clear();
+        this.sessionService.getById(1L);
+
+        assertThat(this.statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    public void findByEmail_shouldBeServedFromTheQueryCache() {
+        this.userRepository.findByEmail("cached@studio.com");
+        this.statistics.clear();
+
+        this.userRepository.findByEmail("cached@studio.com");
+
+        assertThat(this.statistics.getPrepareStatementCount()).isZero();
+        assertThat(this.statistics.getQueryCacheHitCount()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,142 @@
+package com.openclassrooms.starterjwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.openclassrooms.starterjwt.exception.BadRequestException;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class SessionCapacityIT {
+
+    private static final int CAPACITY = 50;
+
+    private static final int USERS = 2000;
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long sessionId;
+
+    private List<Long> userIds;
+
+    @BeforeEach
+    public void setup() {
+        this.sessionId = TestIds.allocate(this.jdbcTemplate, "SESSIONS", 1);
+        this.jdbcTemplate.update("INSERT INTO SESSIONS (id, name, description, date, teacher_id, capacity) "
+                + "VALUES (?, 'Stress session', 'Stress test', CURRENT_TIMESTAMP, 1, ?)", this.sessionId, CAPACITY);
+
+        long firstUserId = TestIds.allocate(this.jdbcTemplate, "USERS", USERS);
+        List<Object[]> users = new ArrayList<>();
+        for (int i = 0; i < USERS; i++) {
+            users.add(new Object[] { firstUserId + i, "stress" + i + "@studio.com" });
+        }
+        this.jdbcTemplate.batchUpdate("INSERT INTO USERS (id, first_name, last_name, admin, email, password) "
+                + "VALUES (?, 'Stress', 'Test', false, ?, 'password')", users);
+        this.userIds = this.jdbcTemplate.queryForList("SELECT id FROM USERS WHERE email LIKE 'stress%' ORDER BY id", Long.class);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.jdbcTemplate.update("DELETE FROM WAITLIST WHERE session_id = ?", this.sessionId);
+        this.jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ?", this.sessionId);
+        this.jdbcTemplate.update("DELETE FROM SESSIONS WHERE id = ?", this.sessionId);
+        this.jdbcTemplate.update("DELETE FROM USERS WHERE email LIKE 'stress%'");
+    }
+
+    @Test
+    public void participate_shouldNeverOverbookUnderContention() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger enrolled = new AtomicInteger();
+        AtomicInteger waitlisted = new AtomicInteger();
+        List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+        List<Future<?>> futures = new ArrayList<>();
+
+        // Every user tries twice so that duplicate enrollments race as well
+        for (int attempt = 0; attempt < 2; attempt++) {
+            for (Long userId : this.userIds) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    try {
+                        ParticipationStatus status = this.sessionService.participate(this.sessionId, userId);
+                        (status == ParticipationStatus.ENROLLED ? enrolled : waitlisted).incrementAndGet();
+                    } catch (RuntimeException e) {
+                        if (!(e instanceof BadRequestException)) {
+                            errors.add(e);
+                        }
+                    }
+                    return null;
+                }));
+            }
+        }
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+        assertThat(executor.awaitTermination(1, TimeUnit.MINUTES)).isTrue();
+
+        assertThat(errors).isEmpty();
+        assertThat(enrolled.get()).isEqualTo(CAPACITY);
+        assertThat(waitlisted.get()).isEqualTo(USERS - CAPACITY);
+        assertThat(countParticipants()).isEqualTo(CAPACITY);
+        assertThat(seatsTaken()).isEqualTo(CAPACITY);
+        assertThat(this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM WAITLIST WHERE session_id = ?", Integer.class, this.sessionId))
+                .isEqualTo(USERS - CAPACITY);
+    }
+
+    @Test
+    public void noLongerParticipate_shouldPromoteWaitlistInArrivalOrder() throws Exception {
+        for (Long userId : this.userIds.subList(0, CAPACITY + 10)) {
+            this.sessionService.participate(this.sessionId, userId);
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        List<Future<?>> futures = new ArrayList<>();
+        for (Long userId : this.userIds.subList(0, 5)) {
+            futures.add(executor.submit(() -> this.sessionService.noLongerParticipate(this.sessionId, userId)));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        List<Long> participants = this.jdbcTemplate.queryForList(
+                "SELECT user_id FROM PARTICIPATE WHERE session_id = ?", Long.class, this.sessionId);
+        assertThat(participants).hasSize(CAPACITY)
+                .containsAll(this.userIds.subList(CAPACITY, CAPACITY + 5))
+                .doesNotContainAnyElementsOf(this.userIds.subList(CAPACITY + 5, CAPACITY + 10));
+        assertThat(seatsTaken()).isEqualTo(CAPACITY);
+    }
+
+    private int countParticipants() {
+        return this.jdbcTemplate.queryForObject("SELECT COUNT(*) FROM PARTICIPATE WHERE session_id = ?", Integer.class, this.sessionId);
+    }
+
+    private int seatsTaken() {
+        return this.jdbcTemplate.queryForObject("SELECT seats_taken FROM SESSIONS WHERE id = ?", Integer.class, this.sessionId);
+    }
+}
@@ -3,24 +3,33 @@ package com.openclassrooms.starterjwt;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.openclassrooms.starterjwt.dto.SessionDto;
 import com.openclassrooms.starterjwt.mapper.SessionMapper;
+import com.openclassrooms.starterjwt.metrics.QueryCountFilter;
 import com.openclassrooms.starterjwt.models.Session;
+import com.openclassrooms.starterjwt.models.Teacher;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.request.RecurringSessionRequest;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.TeacherRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.services.TeacherCatalog;
 
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -28,8 +37,12 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
 import java.time.Instant;
+import java.time.ZoneId;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 
+import javax.persistence.EntityManagerFactory;
 import javax.transaction.Transactional;
 
 @SpringBootTest
@@ -56,6 +69,15 @@ public class SessionControllerIT {
     @Autowired
     private UserRepository userRepository;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TeacherCatalog teacherCatalog;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
     private EmbeddedDatabase db;
 
     @BeforeEach
@@ -86,6 +108,66 @@ public class SessionControllerIT {
                 .andExpect(jsonPath("$.name").value("Session de test 1"));
     }
 
+    @Test
+    public void findById_shouldReturnParticipantIds() throws Exception {
+        Session session = sessionRepository.getById(1L);
+        session.getUsers().add(userRepository.getById(1L));
+        sessionRepository.saveAndFlush(session);
+
+        mockMvc.perform(get("/api/session/1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.teacher_id").value(1))
+                .andExpect(jsonPath("$.users[0]").value(1));
+    }
+
+    @Test
+    public void findById_shouldReturnNotFound() throws Exception {
+        mockMvc.perform(get("/api/session/999"))
+                .andExpect(status().isNotFound());
+    }
+
+    @Test
+    public void findById_shouldReturnNotModifiedForAMatchingETag() throws Exception {
+        String eTag = mockMvc.perform(get("/api/session/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/session/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, eTag))
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void findById_shouldChangeTheETagWhenAUserParticipates() throws Exception {
+        String eTag = mockMvc.perform(get("/api/session/1"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(post("/api/session/1/participate/1"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session/1").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.users[0]").value(1));
+    }
+
+    @Test
+    public void findAll_shouldReturnNotModifiedUntilASessionIsDeleted() throws Exception {
+        String eTag = mockMvc.perform(get("/api/session/"))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/session/").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(delete("/api/session/2"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/session/").header(HttpHeaders.IF_NONE_MATCH, eTag))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1));
+    }
+
     @Test
     public void findAll_shouldReturnAllSessions() throws Exception {
         mockMvc.perform(get("/api/session/"))
@@ -95,6 +177,65 @@ public class SessionControllerIT {
                 .andExpect(jsonPath("$[1].name").value("Session de test 2"));
     }
 
+    @Test
+    public void findPage_shouldReturnPageWithNextCursor() throws Exception {
+        mockMvc.perform(get("/api/session").param("size", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.items.length()").value(1))
+                .andExpect(jsonPath("$.items[0].name").value("Session de test 1"))
+                .andExpect(jsonPath("$.next").isNotEmpty());
+    }
+
+    @Test
+    public void findPage_shouldReturnBadRequestOnInvalidCursor() throws Exception {
+        mockMvc.perform(get("/api/session").param("size", "1").param("cursor", "%%%"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void export_shouldStreamOneSessionPerLine() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/session/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(objectMapper.readValue(lines[0], SessionDto.class).getName()).isEqualTo("Session de test 1");
+    }
+
+    @Test
+    public void export_shouldHaveItsOwnTimeout() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/session/export"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(600_000L);
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk());
+    }
+
+    @Test
+    public void export_shouldFilterByDate() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/session/export").param("from", "2999-01-01T00:00:00.000Z"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().string(""));
+    }
+
+    @Test
+    public void export_shouldReturnBadRequestOnAnEmptyRange() throws Exception {
+        mockMvc.perform(get("/api/session/export").param("from", "2024-02-01T00:00:00.000Z").param("to", "2024-01-01T00:00:00.000Z"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     public void create_shouldCreateASession() throws Exception {
         Session sessionToCreate = new Session();
@@ -111,6 +252,166 @@ public class SessionControllerIT {
                 .andExpect(jsonPath("$.description").value(sessionToCreate.getDescription()));
     }
 
+    @Test
+    public void create_shouldResolveParticipants() throws Exception {
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Name of the new session");
+        sessionDto.setDescription("Description of the new session");
+        sessionDto.setDate(Date.from(Instant.now()));
+        sessionDto.setTeacher_id(2L);
+        sessionDto.setUsers(Arrays.asList(1L, 1L));
+
+        mockMvc.perform(post("/api/session")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.teacher_id").value(2))
+                .andExpect(jsonPath("$.users.length()").value(1))
+                .andExpect(jsonPath("$.users[0]").value(1));
+    }
+
+    @Test
+    public void create_shouldReturnBadRequestOnUnknownParticipant() throws Exception {
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Name of the new session");
+        sessionDto.setDescription("Description of the new session");
+        sessionDto.setDate(Date.from(Instant.now()));
+        sessionDto.setTeacher_id(1L);
+        sessionDto.setUsers(Arrays.asList(1L, 999L));
+
+        mockMvc.perform(post("/api/session")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void create_shouldNotQueryTheTeacherOfTheCatalog() throws Exception {
+        teacherCatalog.findById(2L);
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Name of the new session");
+        sessionDto.setDescription("Description of the new session");
+        sessionDto.setDate(Date.from(Instant.now()));
+        sessionDto.setTeacher_id(2L);
+
+        mockMvc.perform(post("/api/session")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isOk());
+
+        assertThat(statistics.getQueries()).noneMatch(query -> query.contains(Teacher.class.getSimpleName()));
+        assertThat(statistics.getEntityStatistics(Teacher.class.getName()).getLoadCount()).isZero();
+    }
+
+    @Test
+    public void create_shouldReturnBadRequestWhenParticipantsExceedTheCapacity() throws Exception {
+        User otherUser = userRepository.save(new User("other@studio.com", "Other", "User", "password", false));
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Name of the new session");
+        sessionDto.setDescription("Description of the new session");
+        sessionDto.setDate(Date.from(Instant.now()));
+        sessionDto.setTeacher_id(1L);
+        sessionDto.setCapacity(1);
+        sessionDto.setUsers(Arrays.asList(1L, otherUser.getId()));
+        long sessions = sessionRepository.count();
+
+        mockMvc.perform(post("/api/session")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isBadRequest());
+
+        assertThat(sessionRepository.count()).isEqualTo(sessions);
+    }
+
+    @Test
+    public void create_shouldReturnBadRequestOnUnknownTeacher() throws Exception {
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Name of the new session");
+        sessionDto.setDescription("Description of the new session");
+        sessionDto.setDate(Date.from(Instant.now()));
+        sessionDto.setTeacher_id(999L);
+
+        mockMvc.perform(post("/api/session")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(sessionDto)))
+                .andExpect(status().isBadRequest());
+    }
+
+    private RecurringSessionRequest recurringSession(Integer occurrences, Date until) {
+        SessionDto sessionDto = new SessionDto();
+        sessionDto.setName("Weekly session");
+        sessionDto.setDescription("Every week of the semester");
+        sessionDto.setDate(Date.from(Instant.parse("2030-01-07T18:00:00Z")));
+        sessionDto.setTeacher_id(2L);
+        sessionDto.setUsers(Arrays.asList(1L));
+        sessionDto.setCapacity(20);
+
+        RecurringSessionRequest request = new RecurringSessionRequest();
+        request.setSession(sessionDto);
+        request.setOccurrences(occurrences);
+        request.setUntil(until);
+        return request;
+    }
+
+    @Test
+    public void createRecurring_shouldCreateOneSessionPerWeekInFewStatements() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/session/recurring")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(recurringSession(15, null))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(15))
+                .andReturn();
+
+        // Participants lookup, one block of ids, one batch per table and the seat count
+        assertThat(Integer.parseInt(result.getResponse().getHeader(QueryCountFilter.COUNT_HEADER))).isLessThanOrEqualTo(6);
+
+        List<Long> ids = Arrays.asList(objectMapper.readValue(result.getResponse().getContentAsString(), Long[].class));
+        List<Session> sessions = sessionRepository.findAllById(ids);
+        assertThat(sessions).hasSize(15).allSatisfy(session -> {
+            assertThat(session.getName()).isEqualTo("Weekly session");
+            assertThat(session.getTeacher().getId()).isEqualTo(2L);
+            assertThat(session.getCapacity()).isEqualTo(20);
+            assertThat(session.getUsers()).extracting(User::getId).containsExactly(1L);
+        });
+        assertThat(sessions).extracting(session -> session.getDate().toInstant().atZone(ZoneId.systemDefault()).toLocalTime())
+                .containsOnly(Instant.parse("2030-01-07T18:00:00Z").atZone(ZoneId.systemDefault()).toLocalTime());
+        assertThat(jdbcTemplate.queryForList("SELECT seats_taken FROM SESSIONS WHERE name = 'Weekly session'", Integer.class))
+                .hasSize(15).containsOnly(1);
+    }
+
+    @Test
+    public void createRecurring_shouldStopAtTheUntilDate() throws Exception {
+        MvcResult result = mockMvc.perform(post("/api/session/recurring")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(objectMapper.writeValueAsString(recurringSession(null, Date.from(Instant.parse("2030-01-21T18:00:00Z"))))))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andReturn();
+
+        List<Long> ids = Arrays.asList(objectMapper.readValue(result.getResponse().getContentAsString(), Long[].class));
+        assertThat(sessionRepository.findAllById(ids)).extracting(session -> session.getDate().toInstant())
+                .containsExactlyInAnyOrder(Instant.parse("2030-01-07T18:00:00Z"), Instant.parse("2030-01-14T18:00:00Z"), Instant.parse("2030-01-21T18:00:00Z"));
+    }
+
+    @Test
+    public void createRecurring_shouldReturnBadRequestOnAnInvalidRecurrence() throws Exception {
+        for (RecurringSessionRequest request : Arrays.asList(
+                recurringSession(null, null),
+                recurringSession(3, Date.from(Instant.parse("2030-02-01T00:00:00Z"))),
+                recurringSession(0, null),
+                recurringSession(105, null),
+                recurringSession(null, Date.from(Instant.parse("2029-12-31T00:00:00Z"))))) {
+            mockMvc.perform(post("/api/session/recurring")
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .content(objectMapper.writeValueAsString(request)))
+                    .andExpect(status().isBadRequest());
+        }
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM SESSIONS WHERE name = 'Weekly session'", Long.class)).isZero();
+    }
+
     @Test
     public void update_shouldUpdateTheSession() throws Exception {
         Session sessionToUpdate = sessionRepository.getById(1L);
@@ -1,12 +1,19 @@
 package com.openclassrooms.starterjwt;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import java.time.Instant;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.persistence.EntityManager;
 
 import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
@@ -15,6 +22,8 @@ import org.mockito.Spy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabase;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseBuilder;
 import org.springframework.jdbc.datasource.embedded.EmbeddedDatabaseType;
@@ -26,6 +35,9 @@ import com.openclassrooms.starterjwt.models.Session;
 import com.openclassrooms.starterjwt.models.User;
 import com.openclassrooms.starterjwt.repository.SessionRepository;
 import com.openclassrooms.starterjwt.repository.UserRepository;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.services.ParticipationStatus;
+import com.openclassrooms.starterjwt.services.SessionPage;
 import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.TeacherService;
 
@@ -47,6 +59,12 @@ public class SessionServiceIT {
     @Autowired
     private TeacherService teacherService;
 
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private EntityManager entityManager;
+
     private Session testSession;
 
     private EmbeddedDatabase db;
@@ -92,6 +110,50 @@ public class SessionServiceIT {
         assertThat(sessionRepository.findById(newSession.getId())).isPresent();
     }
 
+    @Test
+    public void forEachSession_shouldHandOverEverySessionWithItsParticipants() {
+        jdbcTemplate.update("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (2, 1)");
+        Map<Long, List<Long>> exported = new LinkedHashMap<>();
+
+        sessionService.forEachSession(null, null, (session, users) -> exported.put(session.getId(), users));
+
+        assertThat(exported).containsExactly(entry(1L, List.of()), entry(2L, List.of(1L)));
+    }
+
+    @Test
+    public void forEachSession_shouldOnlyReturnSessionsInRange() {
+        jdbcTemplate.update("UPDATE SESSIONS SET date = ? WHERE id = 2", Date.from(Instant.parse("2030-06-01T10:00:00Z")));
+        List<Long> exported = new ArrayList<>();
+
+        sessionService.forEachSession(Date.from(Instant.parse("2030-01-01T00:00:00Z")), Date.from(Instant.parse("2031-01-01T00:00:00Z")),
+                (session, users) -> exported.add(session.getId()));
+
+        assertThat(exported).containsExactly(2L);
+    }
+
+    @Test
+    public void findUpcomingPage_shouldPageTheFutureSessionsOfTheUser() {
+        long firstId = TestIds.allocate(jdbcTemplate, "SESSIONS", 3);
+        jdbcTemplate.update("INSERT INTO SESSIONS (id, name, description, date, teacher_id) VALUES "
+                + "(?, 'Future 1', 'Future', ?, 1), (?, 'Future 2', 'Future', ?, 1), (?, 'Not attended', 'Future', ?, 1)",
+                firstId, Date.from(Instant.now().plusSeconds(3600)), firstId + 1, Date.from(Instant.now().plusSeconds(7200)),
+                firstId + 2, Date.from(Instant.now().plusSeconds(1800)));
+        List<Long> ids = jdbcTemplate.queryForList("SELECT id FROM SESSIONS WHERE name LIKE 'Future%' ORDER BY date", Long.class);
+        // Session 1 is attended as well but already started
+        jdbcTemplate.update("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (1, 1), (?, 1), (?, 1)", ids.get(0), ids.get(1));
+
+        SessionPage first = sessionService.findUpcomingPage(1L, null, 1);
+        SessionPage second = sessionService.findUpcomingPage(1L, first.getNext(), 1);
+
+        assertThat(first.getSessions()).extracting(SessionSummary::getId).containsExactly(ids.get(0));
+        assertThat(first.getSessions()).extracting(SessionSummary::getName, SessionSummary::getTeacherId)
+                .containsExactly(tuple("Future 1", 1L));
+        assertThat(first.getSessions().get(0).getCreatedAt()).isNotNull();
+        assertThat(first.getParticipants()).containsEntry(ids.get(0), List.of(1L));
+        assertThat(second.getSessions()).extracting(SessionSummary::getId).containsExactly(ids.get(1));
+        assertThat(second.getNext()).isNull();
+    }
+
     @Test
     public void delete_shouldDeleteSession() {
         assertThat(sessionRepository.count()).isEqualTo(2);
@@ -112,6 +174,49 @@ public class SessionServiceIT {
         assertThat(sessionsList.get(1).getDescription()).isEqualTo("Deuxième session de test");
     }
 
+    @Test
+    public void findPage_shouldWalkSessionsWithCursor() {
+        SessionPage firstPage = sessionService.findPage(null, 1);
+
+        assertThat(firstPage.getSessions()).extracting(SessionSummary::getId).containsExactly(1L);
+        assertThat(firstPage.getNext()).isNotNull();
+
+        SessionPage secondPage = sessionService.findPage(firstPage.getNext(), 1);
+
+        assertThat(secondPage.getSessions()).extracting(SessionSummary::getId).containsExactly(2L);
+        assertThat(secondPage.getNext()).isNull();
+    }
+
+    @Test
+    public void findPage_shouldThrowBadRequestExceptionOnInvalidCursor() {
+        assertThrows(BadRequestException.class, () -> {
+            sessionService.findPage("not-a-cursor", 1);
+        });
+    }
+
+    @Test
+    public void findAllSummaries_shouldReturnSessionColumns() {
+        List<SessionSummary> summaries = sessionService.findAllSummaries();
+
+        assertThat(summaries).extracting(SessionSummary::getName).containsExactly("Session de test 1", "Session de test 2");
+        assertThat(summaries.get(0).getTeacherId()).isEqualTo(1L);
+    }
+
+    @Test
+    public void findParticipantIds_shouldReadParticipateTable() {
+        sessionService.participate(2L, 1L);
+        sessionRepository.flush();
+
+        assertThat(sessionService.findParticipantIds(2L)).containsExactly(1L);
+        assertThat(sessionService.findParticipantIds(1L)).isEmpty();
+        assertThat(sessionService.findAllParticipantIds()).containsOnlyKeys(2L);
+    }
+
+    @Test
+    public void getSummaryById_shouldReturnNull() {
+        assertThat(sessionService.getSummaryById(999L)).isNull();
+    }
+
     @Test
     public void getById_shouldReturnTheRightSession() {
         Session firstSession = sessionService.getById(1L);
@@ -164,6 +269,75 @@ public class SessionServiceIT {
         });
     }
 
+    @Test
+    public void participate_shouldBeRejectedByDatabaseOnDuplicate() {
+        sessionService.participate(2L, 1L);
+
+        assertThrows(DataIntegrityViolationException.class, () -> {
+            jdbcTemplate.update("INSERT INTO PARTICIPATE (session_id, user_id) VALUES (2, 1)");
+        });
+    }
+
+    @Test
+    public void participate_shouldWaitlistWhenSessionIsFull() {
+        jdbcTemplate.update("UPDATE SESSIONS SET capacity = 1 WHERE id = 2");
+        User otherUser = userRepository.save(new User("other@studio.com", "Other", "User", "password", false));
+
+        assertThat(sessionService.participate(2L, 1L)).isEqualTo(ParticipationStatus.ENROLLED);
+        assertThat(sessionService.participate(2L, otherUser.getId())).isEqualTo(ParticipationStatus.WAITLISTED);
+        assertThat(sessionService.findParticipantIds(2L)).containsExactly(1L);
+
+        assertThrows(BadRequestException.class, () -> {
+            sessionService.participate(2L, otherUser.getId());
+        });
+    }
+
+    @Test
+    public void noLongerParticipate_shouldPromoteFirstWaitlistedUser() {
+        jdbcTemplate.update("UPDATE SESSIONS SET capacity = 1 WHERE id = 2");
+        User otherUser = userRepository.save(new User("other@studio.com", "Other", "User", "password", false));
+        sessionService.participate(2L, 1L);
+        sessionService.participate(2L, otherUser.getId());
+
+        sessionService.noLongerParticipate(2L, 1L);
+
+        assertThat(sessionService.findParticipantIds(2L)).containsExactly(otherUser.getId());
+        assertThat(jdbcTemplate.queryForObject("SELECT seats_taken FROM SESSIONS WHERE id = 2", Integer.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM WAITLIST", Integer.class)).isZero();
+    }
+
+    @Test
+    public void update_shouldPromoteWaitlistedUsersToTheAddedSeats() {
+        jdbcTemplate.update("UPDATE SESSIONS SET capacity = 1 WHERE id = 2");
+        User secondUser = userRepository.save(new User("second@studio.com", "Second", "User", "password", false));
+        User thirdUser = userRepository.save(new User("third@studio.com", "Third", "User", "password", false));
+        sessionService.participate(2L, 1L);
+        sessionService.participate(2L, secondUser.getId());
+        sessionService.participate(2L, thirdUser.getId());
+
+        Session session = sessionRepository.findById(2L).get();
+        session.setCapacity(2);
+        sessionService.update(2L, session);
+
+        assertThat(sessionService.findParticipantIds(2L)).containsExactlyInAnyOrder(1L, secondUser.getId());
+        assertThat(jdbcTemplate.queryForObject("SELECT seats_taken FROM SESSIONS WHERE id = 2", Integer.class)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForList("SELECT user_id FROM WAITLIST WHERE session_id = 2", Long.class))
+                .containsExactly(thirdUser.getId());
+    }
+
+    @Test
+    public void noLongerParticipate_shouldLeaveWaitlist() {
+        jdbcTemplate.update("UPDATE SESSIONS SET capacity = 1 WHERE id = 2");
+        User otherUser = userRepository.save(new User("other@studio.com", "Other", "User", "password", false));
+        sessionService.participate(2L, 1L);
+        sessionService.participate(2L, otherUser.getId());
+
+        sessionService.noLongerParticipate(2L, otherUser.getId());
+
+        assertThat(sessionService.findParticipantIds(2L)).containsExactly(1L);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM WAITLIST", Integer.class)).isZero();
+    }
+
     @Test
     public void noLongerParticipate_shouldRemoveUserFromSessionUsers() {
         Long sessionId = 2L;
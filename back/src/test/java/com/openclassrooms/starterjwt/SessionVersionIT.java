@@ -0,0 +1,76 @@
+package com.openclassrooms.starterjwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.openclassrooms.starterjwt.controllers.ETags;
+import com.openclassrooms.starterjwt.repository.projection.SessionVersion;
+import com.openclassrooms.starterjwt.services.SessionService;
+
+// Not transactional: each change commits on its own, like separate requests
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+public class SessionVersionIT {
+
+    @Autowired
+    private SessionService sessionService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long sessionId;
+
+    private Long userId;
+
+    @BeforeEach
+    public void setup() {
+        this.sessionId = TestIds.allocate(this.jdbcTemplate, "SESSIONS", 1);
+        this.jdbcTemplate.update("INSERT INTO SESSIONS (id, name, description, date, teacher_id) "
+                + "VALUES (?, 'Versioned session', 'ETags', CURRENT_TIMESTAMP, 1)", this.sessionId);
+        this.userId = TestIds.allocate(this.jdbcTemplate, "USERS", 1);
+        this.jdbcTemplate.update("INSERT INTO USERS (id, first_name, last_name, admin, email, password) "
+                + "VALUES (?, 'Versioned', 'User', false, 'versioned@studio.com', 'password')", this.userId);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        this.jdbcTemplate.update("DELETE FROM PARTICIPATE WHERE session_id = ?", this.sessionId);
+        this.jdbcTemplate.update("DELETE FROM SESSIONS WHERE id = ?", this.sessionId);
+        this.jdbcTemplate.update("DELETE FROM USERS WHERE id = ?", this.userId);
+    }
+
+    @Test
+    public void participate_shouldChangeTheETagsOnEveryChangeWithinASecond() {
+        List<String> sessionETags = new ArrayList<>();
+        List<String> listETags = new ArrayList<>();
+        Runnable collect = () -> {
+            SessionVersion version = this.sessionService.getVersion(this.sessionId);
+            sessionETags.add(ETags.of("session-" + this.sessionId, version.getCount(), version.getUpdatedAt()));
+            SessionVersion all = this.sessionService.getVersion();
+            listETags.add(ETags.of("sessions", all.getCount(), all.getUpdatedAt()));
+        };
+
+        long start = System.nanoTime();
+        collect.run();
+        this.sessionService.participate(this.sessionId, this.userId);
+        collect.run();
+        this.sessionService.noLongerParticipate(this.sessionId, this.userId);
+        collect.run();
+        this.sessionService.participate(this.sessionId, this.userId);
+        collect.run();
+
+        assertThat(System.nanoTime() - start).isLessThan(1_000_000_000L);
+        assertThat(sessionETags).doesNotHaveDuplicates();
+        assertThat(listETags).doesNotHaveDuplicates();
+    }
+}
@@ -3,22 +3,30 @@ package com.openclassrooms.starterjwt;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import java.time.LocalDateTime;
 import java.util.Arrays;
 import java.util.List;
 
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.ServletWebRequest;
 
 import com.openclassrooms.starterjwt.controllers.TeacherController;
 import com.openclassrooms.starterjwt.dto.TeacherDto;
 import com.openclassrooms.starterjwt.mapper.TeacherMapper;
 import com.openclassrooms.starterjwt.models.Teacher;
+import com.openclassrooms.starterjwt.services.TeacherCatalog;
 import com.openclassrooms.starterjwt.services.TeacherService;
 
 @ExtendWith(MockitoExtension.class)
@@ -30,9 +38,13 @@ public class TeacherControllerTest {
     @Mock
     private TeacherMapper teacherMapper;
 
-    @InjectMocks
     private TeacherController teacherController;
 
+    @BeforeEach
+    public void setup() {
+        teacherController = new TeacherController(new TeacherCatalog(teacherService, teacherMapper, 100, 60));
+    }
+
     @Test
     public void findById_shouldReturnTheRightTeacher() {
         Teacher teacher = new Teacher();
@@ -40,7 +52,7 @@ public class TeacherControllerTest {
         when(teacherService.findById(anyLong())).thenReturn(teacher);
         when(teacherMapper.toDto(any(Teacher.class))).thenReturn(teacherDto);
 
-        ResponseEntity<?> response = teacherController.findById("1");
+        ResponseEntity<?> response = teacherController.findById("1", new ServletWebRequest(new MockHttpServletRequest()));
 
         assertThat(response.getStatusCodeValue()).isEqualTo(200);
         assertThat(response.getBody()).isEqualTo(teacherDto);
@@ -50,14 +62,14 @@ public class TeacherControllerTest {
     public void findById_shouldReturnNotFound() {
         when(teacherService.findById(anyLong())).thenReturn(null);
 
-        ResponseEntity<?> response = teacherController.findById("1");
+        ResponseEntity<?> response = teacherController.findById("1", new ServletWebRequest(new MockHttpServletRequest()));
 
         assertThat(response.getStatusCodeValue()).isEqualTo(404);
     }
 
     @Test
     public void findById_shouldReturnBadRequest() {
-        ResponseEntity<?> response = teacherController.findById("test");
+        ResponseEntity<?> response = teacherController.findById("test", new ServletWebRequest(new MockHttpServletRequest()));
 
         assertThat(response.getStatusCodeValue()).isEqualTo(400);
     }
@@ -77,11 +89,84 @@ public class TeacherControllerTest {
         when(teacherService.findAll()).thenReturn(teachers);
         when(teacherMapper.toDto(teachers)).thenReturn(teachersDto);
 
-        ResponseEntity<?> response = teacherController.findAll();
+        ResponseEntity<?> response = teacherController.findAll(new ServletWebRequest(new MockHttpServletRequest()));
 
         assertThat(response.getStatusCodeValue()).isEqualTo(200);
         System.out.println("LEBODY: " + response.getBody().toString());
         assertThat(response.getBody()).isEqualTo(teachersDto);
     }
 
+    @Test
+    public void findAll_shouldServeRepeatedReadsFromTheCatalog() {
+        Teacher teacher = new Teacher();
+        TeacherDto teacherDto = new TeacherDto();
+        teacherDto.setId(1L);
+        List<Teacher> teachers = Arrays.asList(teacher);
+        when(teacherService.findAll()).thenReturn(teachers);
+        when(teacherMapper.toDto(teachers)).thenReturn(Arrays.asList(teacherDto));
+
+        teacherController.findAll(new ServletWebRequest(new MockHttpServletRequest()));
+        ResponseEntity<?> all = teacherController.findAll(new ServletWebRequest(new MockHttpServletRequest()));
+        ResponseEntity<?> one = teacherController.findById("1", new ServletWebRequest(new MockHttpServletRequest()));
+
+        assertThat(all.getBody()).isEqualTo(Arrays.asList(teacherDto));
+        assertThat(one.getBody()).isEqualTo(teacherDto);
+        verify(teacherService, times(1)).findAll();
+        verify(teacherService, never()).findById(anyLong());
+    }
+
+    @Test
+    public void invalidate_shouldReloadTheTeacher() {
+        TeacherCatalog catalog = new TeacherCatalog(teacherService, teacherMapper, 100, 60);
+        Teacher teacher = new Teacher();
+        when(teacherService.findById(1L)).thenReturn(teacher);
+        when(teacherMapper.toDto(teacher)).thenReturn(new TeacherDto());
+
+        catalog.findById(1L);
+        catalog.findById(1L);
+        catalog.invalidate(1L);
+        catalog.findById(1L);
+
+        verify(teacherService, times(2)).findById(1L);
+        assertThat(catalog.getTeacherStats().hitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void findById_shouldReturnNotModifiedForAMatchingETag() {
+        TeacherDto teacherDto = new TeacherDto();
+        teacherDto.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        Teacher teacher = new Teacher();
+        when(teacherService.findById(1L)).thenReturn(teacher);
+        when(teacherMapper.toDto(teacher)).thenReturn(teacherDto);
+        String eTag = teacherController.findById("1", new ServletWebRequest(new MockHttpServletRequest())).getHeaders().getETag();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/teacher/1");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+
+        ResponseEntity<?> response = teacherController.findById("1", new ServletWebRequest(request));
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(304);
+        assertThat(response.getBody()).isNull();
+    }
+
+    @Test
+    public void findAll_shouldChangeTheETagWhenATeacherIsUpdated() {
+        TeacherDto teacherDto = new TeacherDto();
+        teacherDto.setUpdatedAt(LocalDateTime.of(2024, 1, 1, 12, 0));
+        List<Teacher> teachers = Arrays.asList(new Teacher());
+        when(teacherService.findAll()).thenReturn(teachers);
+        when(teacherMapper.toDto(teachers)).thenReturn(Arrays.asList(teacherDto));
+        TeacherCatalog catalog = new TeacherCatalog(teacherService, teacherMapper, 100, 60);
+        TeacherController controller = new TeacherController(catalog);
+        String eTag = controller.findAll(new ServletWebRequest(new MockHttpServletRequest())).getHeaders().getETag();
+
+        teacherDto.setUpdatedAt(LocalDateTime.of(2024, 1, 2, 12, 0));
+        catalog.invalidateAll();
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/teacher");
+        request.addHeader(HttpHeaders.IF_NONE_MATCH, eTag);
+        ResponseEntity<?> response = controller.findAll(new ServletWebRequest(request));
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(200);
+        assertThat(response.getHeaders().getETag()).isNotEqualTo(eTag);
+    }
+
 }
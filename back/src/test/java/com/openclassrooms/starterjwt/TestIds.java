@@ -0,0 +1,24 @@
+package com.openclassrooms.starterjwt;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * Ids for the rows the tests, the benchmarks and the load test insert with plain SQL, taken
+ * from the same one-row tables as the ids Hibernate allocates to teachers, users and sessions,
+ * so that both never collide.
+ */
+public final class TestIds {
+    private TestIds() {
+    }
+
+    // First id of a block of count consecutive ids of the given table. Like the Hibernate
+    // generator, the block is only taken if no other writer moved next_val in between.
+    public static long allocate(JdbcTemplate jdbcTemplate, String table, int count) {
+        while (true) {
+            long first = jdbcTemplate.queryForObject("SELECT next_val FROM " + table + "_SEQ", Long.class);
+            if (jdbcTemplate.update("UPDATE " + table + "_SEQ SET next_val = ? WHERE next_val = ?", first + count, first) == 1) {
+                return first;
+            }
+        }
+    }
+}
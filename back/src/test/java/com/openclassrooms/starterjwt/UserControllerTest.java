@@ -3,9 +3,13 @@ package com.openclassrooms.starterjwt;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.security.Principal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,9 +23,15 @@ import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.security.core.userdetails.UserDetails;
 
 import com.openclassrooms.starterjwt.controllers.UserController;
+import com.openclassrooms.starterjwt.dto.SessionDto;
 import com.openclassrooms.starterjwt.dto.UserDto;
+import com.openclassrooms.starterjwt.mapper.SessionMapper;
 import com.openclassrooms.starterjwt.mapper.UserMapper;
 import com.openclassrooms.starterjwt.models.User;
+import com.openclassrooms.starterjwt.payload.response.SessionPageResponse;
+import com.openclassrooms.starterjwt.repository.projection.SessionSummary;
+import com.openclassrooms.starterjwt.services.SessionPage;
+import com.openclassrooms.starterjwt.services.SessionService;
 import com.openclassrooms.starterjwt.services.UserService;
 
 @ExtendWith(MockitoExtension.class)
@@ -33,6 +43,12 @@ public class UserControllerTest {
     @Mock
     private UserMapper userMapper;
 
+    @Mock
+    private SessionService sessionService;
+
+    @Mock
+    private SessionMapper sessionMapper;
+
     @Mock
     private SecurityContext securityContext;
 
@@ -81,6 +97,41 @@ public class UserControllerTest {
         assertThat(response.getStatusCodeValue()).isEqualTo(400);
     }
 
+    @Test
+    public void findUpcomingSessions_shouldReturnThePageOfTheUser() {
+        User user = new User();
+        user.setId(1L);
+        List<SessionSummary> sessions = Collections.singletonList(mock(SessionSummary.class));
+        Map<Long, List<Long>> participants = Collections.singletonMap(1L, Collections.singletonList(1L));
+        List<SessionDto> sessionDtos = Collections.singletonList(new SessionDto());
+        when(userService.findById(1L)).thenReturn(user);
+        when(sessionService.findUpcomingPage(1L, null, 10)).thenReturn(new SessionPage(sessions, participants, "next"));
+        when(sessionMapper.toDto(sessions, participants)).thenReturn(sessionDtos);
+
+        ResponseEntity<?> response = userController.findUpcomingSessions("1", 10, null);
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(200);
+        SessionPageResponse body = (SessionPageResponse) response.getBody();
+        assertThat(body.getItems()).isEqualTo(sessionDtos);
+        assertThat(body.getNext()).isEqualTo("next");
+    }
+
+    @Test
+    public void findUpcomingSessions_shouldReturnNotFound() {
+        when(userService.findById(anyLong())).thenReturn(null);
+
+        ResponseEntity<?> response = userController.findUpcomingSessions("1", null, null);
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(404);
+    }
+
+    @Test
+    public void findUpcomingSessions_shouldReturnBadRequest() {
+        ResponseEntity<?> response = userController.findUpcomingSessions("test", null, null);
+
+        assertThat(response.getStatusCodeValue()).isEqualTo(400);
+    }
+
     @Test
     public void save_shouldDeleteTheUser() {
         User user = new User();
@@ -0,0 +1,38 @@
+package com.openclassrooms.starterjwt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+import java.util.concurrent.ExecutorService;
+
+import org.junit.jupiter.api.Test;
+
+import com.openclassrooms.starterjwt.config.VirtualThreadsConfig;
+
+public class VirtualThreadsConfigTest {
+
+    @Test
+    public void newVirtualThreadPerTaskExecutor_shouldRunTasksOnNamedVirtualThreads() throws Exception {
+        assumeTrue(Runtime.version().feature() >= 21, "needs a Java 21 runtime");
+
+        ExecutorService executor = VirtualThreadsConfig.newVirtualThreadPerTaskExecutor("test-");
+        try {
+            Thread thread = executor.submit(Thread::currentThread).get();
+
+            assertThat(thread.getName()).startsWith("test-");
+            assertThat(Thread.class.getMethod("isVirtual").invoke(thread)).isEqualTo(true);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void newVirtualThreadPerTaskExecutor_shouldFailBeforeJava21() {
+        assumeTrue(Runtime.version().feature() < 21, "runs on Java 21 or later");
+
+        assertThatThrownBy(() -> VirtualThreadsConfig.newVirtualThreadPerTaskExecutor("test-"))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessageContaining("Java 21");
+    }
+}
@@ -0,0 +1,54 @@
+-- ressources/sql/script.sql as it was before Flyway, with the foreign key names MySQL
+-- generates for it, and the duplicate participations concurrent enrollments could insert.
+CREATE TABLE `TEACHERS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `last_name` VARCHAR(40),
+  `first_name` VARCHAR(40),
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE TABLE `SESSIONS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `name` VARCHAR(50),
+  `description` VARCHAR(2000),
+  `date` TIMESTAMP,
+  `teacher_id` int,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE TABLE `USERS` (
+  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `last_name` VARCHAR(40),
+  `first_name` VARCHAR(40),
+  `admin` BOOLEAN NOT NULL DEFAULT false,
+  `email` VARCHAR(255),
+  `password` VARCHAR(255),
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
+  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
+);
+
+CREATE TABLE `PARTICIPATE` (
+  `user_id` INT,
+  `session_id` INT
+);
+
+ALTER TABLE `SESSIONS` ADD CONSTRAINT `SESSIONS_ibfk_1` FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD CONSTRAINT `PARTICIPATE_ibfk_1` FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
+ALTER TABLE `PARTICIPATE` ADD CONSTRAINT `PARTICIPATE_ibfk_2` FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
+
+INSERT INTO TEACHERS (first_name, last_name)
+VALUES ('Margot', 'DELAHAYE'),
+       ('Hélène', 'THIERCELIN');
+
+INSERT INTO USERS (first_name, last_name, admin, email, password)
+VALUES ('Admin', 'Admin', true, 'yoga@studio.com', '$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq'),
+       ('Other', 'User', false, 'other@studio.com', 'password');
+
+INSERT INTO SESSIONS (name, description, date, teacher_id)
+VALUES ('Legacy 1', 'Before Flyway', CURRENT_TIMESTAMP, 1),
+       ('Legacy 2', 'Before Flyway', CURRENT_TIMESTAMP, 2);
+
+INSERT INTO PARTICIPATE (user_id, session_id)
+VALUES (1, 1), (1, 1), (2, 1), (1, 2), (1, 2), (1, 2), (NULL, 2);
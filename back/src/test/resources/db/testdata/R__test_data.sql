@@ -0,0 +1,15 @@
+INSERT INTO TEACHERS (id, first_name, last_name)
+VALUES (1, 'Margot', 'DELAHAYE'),
+       (2, 'Hélène', 'THIERCELIN');
+
+
+INSERT INTO USERS (id, first_name, last_name, admin, email, password)
+VALUES (1, 'Admin', 'Admin', true, 'yoga@studio.com', '$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq');
+
+INSERT INTO SESSIONS (id, name, description, date, teacher_id)
+VALUES (1, 'Session de test 1', 'Première session de test', CURRENT_TIMESTAMP, 1),
+       (2, 'Session de test 2', 'Deuxième session de test', CURRENT_TIMESTAMP, 1);
+
+UPDATE TEACHERS_SEQ SET next_val = 3;
+UPDATE USERS_SEQ SET next_val = 2;
+UPDATE SESSIONS_SEQ SET next_val = 3;
@@ -1,10 +1,11 @@
+DROP TABLE IF EXISTS `WAITLIST`;
 DROP TABLE IF EXISTS `PARTICIPATE`;
 DROP TABLE IF EXISTS `SESSIONS`;
 DROP TABLE IF EXISTS `TEACHERS`;
 DROP TABLE IF EXISTS `USERS`;
 
 CREATE TABLE `TEACHERS` (
-  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `id` BIGINT PRIMARY KEY AUTO_INCREMENT,
   `last_name` VARCHAR(40),
   `first_name` VARCHAR(40),
   `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
@@ -12,17 +13,19 @@ CREATE TABLE `TEACHERS` (
 );
 
 CREATE TABLE `SESSIONS` (
-  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `id` BIGINT PRIMARY KEY AUTO_INCREMENT,
   `name` VARCHAR(50),
   `description` VARCHAR(2000),
   `date` TIMESTAMP,
-  `teacher_id` int,
+  `teacher_id` BIGINT,
+  `capacity` INT,
+  `seats_taken` INT NOT NULL DEFAULT 0,
   `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
   `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
 
 CREATE TABLE `USERS` (
-  `id` INT PRIMARY KEY AUTO_INCREMENT,
+  `id` BIGINT PRIMARY KEY AUTO_INCREMENT,
   `last_name` VARCHAR(40),
   `first_name` VARCHAR(40),
   `admin` BOOLEAN NOT NULL DEFAULT false,
@@ -33,10 +36,23 @@ CREATE TABLE `USERS` (
 );
 
 CREATE TABLE `PARTICIPATE` (
-  `user_id` INT, 
-  `session_id` INT
+  `user_id` BIGINT NOT NULL,
+  `session_id` BIGINT NOT NULL,
+  PRIMARY KEY (`session_id`, `user_id`)
+);
+
+CREATE TABLE `WAITLIST` (
+  `id` BIGINT PRIMARY KEY AUTO_INCREMENT,
+  `session_id` BIGINT NOT NULL,
+  `user_id` BIGINT NOT NULL,
+  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
 ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
 ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
-ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
\ No newline at end of file
+ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
+ALTER TABLE `WAITLIST` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`) ON DELETE CASCADE;
+ALTER TABLE `WAITLIST` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`) ON DELETE CASCADE;
+ALTER TABLE `WAITLIST` ADD CONSTRAINT `UK_WAITLIST_SESSION_USER` UNIQUE (`session_id`, `user_id`);
+ALTER TABLE `USERS` ADD CONSTRAINT `UK_USERS_EMAIL` UNIQUE (`email`);
+CREATE INDEX `IDX_SESSIONS_DATE` ON `SESSIONS` (`date`, `id`);
@@ -1,46 +1,14 @@
-CREATE TABLE `TEACHERS` (
-  `id` INT PRIMARY KEY AUTO_INCREMENT,
-  `last_name` VARCHAR(40),
-  `first_name` VARCHAR(40),
-  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
-);
+-- Tables are created by the Flyway migrations in back/src/main/resources/db/migration
+-- when the application starts, this script only adds the initial data. Ids are taken
+-- from the *_SEQ tables the application allocates them from.
 
-CREATE TABLE `SESSIONS` (
-  `id` INT PRIMARY KEY AUTO_INCREMENT,
-  `name` VARCHAR(50),
-  `description` VARCHAR(2000),
-  `date` TIMESTAMP,
-  `teacher_id` int,
-  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
-);
+INSERT INTO TEACHERS (id, first_name, last_name)
+SELECT next_val, 'Margot', 'DELAHAYE' FROM TEACHERS_SEQ
+UNION ALL
+SELECT next_val + 1, 'Hélène', 'THIERCELIN' FROM TEACHERS_SEQ;
+UPDATE TEACHERS_SEQ SET next_val = next_val + 2;
 
-CREATE TABLE `USERS` (
-  `id` INT PRIMARY KEY AUTO_INCREMENT,
-  `last_name` VARCHAR(40),
-  `first_name` VARCHAR(40),
-  `admin` BOOLEAN NOT NULL DEFAULT false,
-  `email` VARCHAR(255),
-  `password` VARCHAR(255),
-  `created_at` TIMESTAMP DEFAULT CURRENT_TIMESTAMP,
-  `updated_at` DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
-);
-
-CREATE TABLE `PARTICIPATE` (
-  `user_id` INT, 
-  `session_id` INT
-);
-
-ALTER TABLE `SESSIONS` ADD FOREIGN KEY (`teacher_id`) REFERENCES `TEACHERS` (`id`);
-ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`user_id`) REFERENCES `USERS` (`id`);
-ALTER TABLE `PARTICIPATE` ADD FOREIGN KEY (`session_id`) REFERENCES `SESSIONS` (`id`);
-
-INSERT INTO TEACHERS (first_name, last_name)
-VALUES ('Margot', 'DELAHAYE'),
-       ('Hélène', 'THIERCELIN');
-
-
-INSERT INTO USERS (first_name, last_name, admin, email, password)
-VALUES ('Admin', 'Admin', true, 'yoga@studio.com', '$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq'); 
 
+INSERT INTO USERS (id, first_name, last_name, admin, email, password)
+SELECT next_val, 'Admin', 'Admin', true, 'yoga@studio.com', '$2a$10$.Hsa/ZjUVaHqi0tp9xieMeewrnZxrZ5pQRzddUXE/WjDu2ZThe6Iq' FROM USERS_SEQ;
+UPDATE USERS_SEQ SET next_val = next_val + 1;